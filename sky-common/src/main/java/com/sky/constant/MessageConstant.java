@@ -23,6 +23,7 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String ORDER_SUBMIT_IN_PROGRESS = "订单正在提交中，请稍后重试";
 
     public static final String ALREADY_EXISTS = "名称已存在";
 }
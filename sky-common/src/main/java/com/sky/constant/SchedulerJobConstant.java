@@ -0,0 +1,26 @@
+package com.sky.constant;
+
+/**
+ * 使用租约的定时任务名称常量
+ */
+public class SchedulerJobConstant {
+
+    //兜底取消超时未支付订单
+    public static final String PROCESS_TIMEOUT_ORDER = "processTimeoutOrder";
+
+    //校准订单状态计数器
+    public static final String RECONCILE_ORDER_STATUS_COUNT = "reconcileOrderStatusCount";
+
+    //自动完成派送中的订单
+    public static final String PROCESS_DELIVERY = "processDelivery";
+
+    //汇总每日营业数据
+    public static final String ROLLUP_BUSINESS_DATA = "rollupBusinessData";
+
+    //购物车回写数据库
+    public static final String FLUSH_SHOPPING_CART = "flushShoppingCart";
+
+    //全部任务，启动时登记，查询租约持有者时列出本节点尚未触发过的任务
+    public static final String[] ALL = {PROCESS_TIMEOUT_ORDER, RECONCILE_ORDER_STATUS_COUNT, PROCESS_DELIVERY,
+            ROLLUP_BUSINESS_DATA, FLUSH_SHOPPING_CART};
+}
@@ -0,0 +1,16 @@
+package com.sky.constant;
+
+/**
+ * WebSocket 订阅主题常量
+ */
+public class WebSocketTopicConstant {
+
+    //来单提醒（用户支付成功）
+    public static final String ORDER_PAID = "order:paid";
+
+    //客户催单
+    public static final String ORDER_REMINDER = "order:reminder";
+
+    //连接时未指定主题的客户端默认订阅的主题
+    public static final String[] DEFAULT_TOPICS = {ORDER_PAID, ORDER_REMINDER};
+}
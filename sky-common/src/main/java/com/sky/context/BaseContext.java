@@ -1,8 +1,14 @@
 package com.sky.context;
 
+import java.util.concurrent.Callable;
+
+/**
+ * 当前登录用户id，请求开始时由拦截器存入，请求结束时清除
+ * 任务交给其他线程执行时，用 wrap 包装后把当前id带到执行线程
+ */
 public class BaseContext {
 
-    public static ThreadLocal<Long> threadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<Long> threadLocal = new ThreadLocal<>();
 
     // 存入线程局部变量
     public static void setCurrentId(Long id) {
@@ -19,4 +25,39 @@ public class BaseContext {
         threadLocal.remove();
     }
 
+    // 包装任务，在执行线程中使用提交时的id，执行完恢复执行线程原来的值
+    public static Runnable wrap(Runnable task) {
+        Long id = getCurrentId();
+        return () -> {
+            Long previous = getCurrentId();
+            set(id);
+            try {
+                task.run();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        Long id = getCurrentId();
+        return () -> {
+            Long previous = getCurrentId();
+            set(id);
+            try {
+                return task.call();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    private static void set(Long id) {
+        if (id == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(id);
+        }
+    }
+
 }
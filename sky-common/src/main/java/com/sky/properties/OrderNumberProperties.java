@@ -0,0 +1,17 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order-number")
+@Data
+public class OrderNumberProperties {
+
+    /**
+     * 订单号生成器的节点号(0~1023)，多节点部署时各节点必须不同；不配置时启动时从 Redis 租用
+     */
+    private Long workerId;
+
+}
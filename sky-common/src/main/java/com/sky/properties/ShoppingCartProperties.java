@@ -0,0 +1,22 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.shopping-cart")
+@Data
+public class ShoppingCartProperties {
+
+    /**
+     * 购物车存储方式：db 直接读写 shopping_cart 表，redis 每个用户一个 Redis hash
+     */
+    private String storage = "db";
+
+    /**
+     * redis 存储时是否异步回写 shopping_cart 表
+     */
+    private boolean persist;
+
+}
@@ -1,6 +1,9 @@
 package com.sky.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.HttpClientProperties;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
@@ -8,10 +11,15 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
@@ -19,13 +27,112 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的 HttpClient，连接在请求之间复用，不再每次请求都重新建立 TCP/TLS 连接。
+ * 连接池参数通过 init 设置 (sky.http-client)，未初始化时使用默认参数。
  */
 public class HttpClientUtil {
 
-    static final  int TIMEOUT_MSEC = 5 * 1000;
+    private static volatile PoolingHttpClientConnectionManager connectionManager;
+
+    private static volatile CloseableHttpClient httpClient;
+
+    /**
+     * 按配置创建共享的 HttpClient，替换已有的
+     * @param properties
+     */
+    public static synchronized void init(HttpClientProperties properties) {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(properties.getMaxTotal());
+        manager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        // 空闲一段时间的连接复用前先检查是否已被服务端关闭
+        manager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                .setSocketTimeout(properties.getSocketTimeout()).build();
+
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(properties.getKeepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleEvict(), TimeUnit.MILLISECONDS)
+                .build();
+
+        CloseableHttpClient old = httpClient;
+        connectionManager = manager;
+        httpClient = client;
+        closeQuietly(old);
+    }
+
+    /**
+     * 关闭共享的 HttpClient 及其连接池
+     */
+    public static synchronized void close() {
+        closeQuietly(httpClient);
+        httpClient = null;
+        connectionManager = null;
+    }
+
+    /**
+     * 连接池统计：已租用、等待中、可用、最大连接数
+     * 未初始化或已关闭时返回全0，不为统计而创建连接池
+     * @return
+     */
+    public static PoolStats getPoolStats() {
+        PoolingHttpClientConnectionManager manager = connectionManager;
+        if (manager == null) {
+            return new PoolStats(0, 0, 0, 0);
+        }
+        return manager.getTotalStats();
+    }
+
+    private static CloseableHttpClient getClient() {
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (HttpClientUtil.class) {
+                if (httpClient == null) {
+                    init(new HttpClientProperties());
+                }
+                client = httpClient;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 优先使用响应头 Keep-Alive: timeout=秒，否则使用默认保持时间
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAlive) {
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            return defaultKeepAlive;
+        };
+    }
+
+    private static void closeQuietly(CloseableHttpClient client) {
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
     /**
      * 发送GET方式请求
@@ -34,9 +141,6 @@ public class HttpClientUtil {
      * @return
      */
     public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-
         String result = "";
         CloseableHttpResponse response = null;
 
@@ -53,7 +157,7 @@ public class HttpClientUtil {
             HttpGet httpGet = new HttpGet(uri);
 
             //发送请求
-            response = httpClient.execute(httpGet);
+            response = getClient().execute(httpGet);
 
             //判断响应状态
             if(response.getStatusLine().getStatusCode() == 200){
@@ -62,12 +166,8 @@ public class HttpClientUtil {
         }catch (Exception e){
             e.printStackTrace();
         }finally {
-            try {
-                response.close();
-                httpClient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            // 关闭响应，连接归还连接池
+            closeResponse(response);
         }
 
         return result;
@@ -81,8 +181,6 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
         CloseableHttpResponse response = null;
         String resultString = "";
 
@@ -101,20 +199,12 @@ public class HttpClientUtil {
                 httpPost.setEntity(entity);
             }
 
-            httpPost.setConfig(builderRequestConfig());
-
             // 执行http请求
-            response = httpClient.execute(httpPost);
+            response = getClient().execute(httpPost);
 
             resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
         } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            closeResponse(response);
         }
 
         return resultString;
@@ -128,8 +218,6 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
         CloseableHttpResponse response = null;
         String resultString = "";
 
@@ -151,29 +239,25 @@ public class HttpClientUtil {
                 httpPost.setEntity(entity);
             }
 
-            httpPost.setConfig(builderRequestConfig());
-
             // 执行http请求
-            response = httpClient.execute(httpPost);
+            response = getClient().execute(httpPost);
 
             resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
         } finally {
+            closeResponse(response);
+        }
+
+        return resultString;
+    }
+
+    private static void closeResponse(CloseableHttpResponse response) {
+        if (response != null) {
             try {
                 response.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
-
-        return resultString;
-    }
-    private static RequestConfig builderRequestConfig() {
-        return RequestConfig.custom()
-                .setConnectTimeout(TIMEOUT_MSEC)
-                .setConnectionRequestTimeout(TIMEOUT_MSEC)
-                .setSocketTimeout(TIMEOUT_MSEC).build();
     }
 
 }
@@ -0,0 +1,120 @@
+package com.sky.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 雪花算法ID生成器：41位毫秒时间戳 + 10位节点号 + 12位序列号
+ * 单节点每毫秒最多4096个，不访问数据库；生成的ID在单节点内严格递增，节点号不同则不会重复
+ * ID中的时间戳不超过当前时间：序列号用完时等到下一毫秒，不借用未来的时间，
+ * 节点号被其他进程接手后不会生成本进程已经生成过的ID。
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 起始时间 2024-01-01 00:00:00 UTC，41位时间戳可用约69年
+     */
+    private static final long EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * 时钟回拨不超过该值(毫秒)时等待时钟追上，超过时拒绝生成
+     */
+    private static final long MAX_BACKWARD_MILLIS = 5;
+
+    private final long workerId;
+
+    /**
+     * 节点号是否仍归本进程使用，租约失效时拒绝生成
+     */
+    private final BooleanSupplier workerIdValid;
+
+    /**
+     * 上一次生成ID使用的时间戳
+     */
+    private long lastTimestamp = -1L;
+
+    private long sequence = 0L;
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, () -> true);
+    }
+
+    /**
+     * @param workerId 节点号
+     * @param workerIdValid 节点号是否仍归本进程使用 (如租约是否有效)
+     */
+    public SnowflakeIdGenerator(long workerId, BooleanSupplier workerIdValid) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId必须在0到" + MAX_WORKER_ID + "之间");
+        }
+        this.workerId = workerId;
+        this.workerIdValid = workerIdValid;
+    }
+
+    /**
+     * 生成下一个ID
+     * 当前毫秒序列号用完时等到下一毫秒；时钟小幅回拨时等待时钟追上，回拨过多或节点号已失效时抛出 IllegalStateException
+     * @return
+     */
+    public synchronized long nextId() {
+        if (!workerIdValid.getAsBoolean()) {
+            throw new IllegalStateException("节点号" + workerId + "的租约已失效，暂停生成ID");
+        }
+        long timestamp = currentTimeMillis();
+        if (timestamp < lastTimestamp) {
+            long backward = lastTimestamp - timestamp;
+            if (backward > MAX_BACKWARD_MILLIS) {
+                throw new IllegalStateException("时钟回拨" + backward + "ms，拒绝生成ID");
+            }
+            timestamp = waitUntilAfter(lastTimestamp - 1);
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp = waitUntilAfter(lastTimestamp);
+            }
+        } else {
+            sequence = 0L;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << (WORKER_ID_BITS + SEQUENCE_BITS))
+                | (workerId << SEQUENCE_BITS)
+                | sequence;
+    }
+
+    /**
+     * 取出ID中的时间戳 (毫秒)
+     * @param id
+     * @return
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (WORKER_ID_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * 等到时钟超过 timestamp
+     */
+    private long waitUntilAfter(long timestamp) {
+        long now = currentTimeMillis();
+        while (now <= timestamp) {
+            Thread.yield();
+            now = currentTimeMillis();
+        }
+        return now;
+    }
+}
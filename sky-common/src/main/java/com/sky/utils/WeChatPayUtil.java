@@ -5,6 +5,7 @@ import com.alibaba.fastjson.JSONObject;
 import com.sky.properties.WeChatProperties;
 import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
 import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -13,13 +14,15 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -28,12 +31,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 微信支付工具类
  */
 @Component
-public class WeChatPayUtil {
+@Slf4j
+public class WeChatPayUtil implements DisposableBean {
 
     //微信支付下单接口地址
     public static final String JSAPI = "https://api.mch.weixin.qq.com/v3/pay/transactions/jsapi";
@@ -41,34 +48,165 @@ public class WeChatPayUtil {
     //申请退款接口地址
     public static final String REFUNDS = "https://api.mch.weixin.qq.com/v3/refund/domestic/refunds";
 
+    /**
+     * 检查密钥文件是否修改的最小间隔(毫秒)
+     */
+    private static final long RELOAD_CHECK_INTERVAL = 5000;
+
+    /**
+     * 热加载后旧客户端延迟关闭的时间(毫秒)，留给仍在执行的请求完成
+     */
+    private static final long RETIRE_GRACE_MILLIS = 60000;
+
     @Autowired
     private WeChatProperties weChatProperties;
 
+    /**
+     * 当前使用的商户私钥、平台证书和客户端，第一次调用时加载
+     */
+    private volatile Credentials credentials;
+
+    /**
+     * 热加载前使用的客户端，可能仍有请求在执行，延迟 RETIRE_GRACE_MILLIS 或应用关闭时再关闭
+     */
+    private final List<CloseableHttpClient> retiredClients = new ArrayList<>();
+
+    private final ScheduledExecutorService retiredClientCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wechat-pay-client-closer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long lastCheckMillis;
+
     /**
      * 获取调用微信接口的客户端工具对象
+     * 客户端带连接池，在请求之间复用；私钥、证书文件修改后自动重新加载
      *
      * @return
      */
-    private CloseableHttpClient getClient() {
-        PrivateKey merchantPrivateKey = null;
+    private CloseableHttpClient getClient() throws IOException {
+        return getCredentials().httpClient;
+    }
+
+    /**
+     * 获取已加载的私钥和客户端，文件修改过时重新加载
+     * 重新加载失败 (如文件正在写入) 时继续使用当前的私钥和客户端，下次检查时再试
+     */
+    private Credentials getCredentials() throws IOException {
+        Credentials current = credentials;
+        long now = System.currentTimeMillis();
+        if (current != null && now - lastCheckMillis < RELOAD_CHECK_INTERVAL) {
+            return current;
+        }
+        synchronized (this) {
+            current = credentials;
+            if (current != null && now - lastCheckMillis < RELOAD_CHECK_INTERVAL) {
+                return current;
+            }
+            lastCheckMillis = now;
+            File keyFile = new File(weChatProperties.getPrivateKeyFilePath());
+            File certFile = new File(weChatProperties.getWeChatPayCertFilePath());
+            if (current != null && current.keyModified == keyFile.lastModified()
+                    && current.certModified == certFile.lastModified()) {
+                return current;
+            }
+
+            if (current == null) {
+                credentials = load(keyFile, certFile);
+                return credentials;
+            }
+            try {
+                credentials = load(keyFile, certFile);
+            } catch (Exception e) {
+                log.error("重新加载微信支付私钥、证书失败，继续使用当前的私钥和证书", e);
+                return current;
+            }
+            log.info("微信支付私钥、证书已重新加载");
+            retire(current.httpClient);
+            return credentials;
+        }
+    }
+
+    /**
+     * 延迟关闭热加载前的客户端
+     */
+    private void retire(CloseableHttpClient client) {
+        retiredClients.add(client);
+        retiredClientCloser.schedule(() -> {
+            synchronized (this) {
+                if (retiredClients.remove(client)) {
+                    closeQuietly(client);
+                }
+            }
+        }, RETIRE_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeQuietly(CloseableHttpClient client) {
         try {
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
-            //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
-
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
-
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            return null;
+            client.close();
+        } catch (IOException e) {
+            log.warn("关闭微信支付客户端失败", e);
+        }
+    }
+
+    private Credentials load(File keyFile, File certFile) throws IOException {
+        long keyModified = keyFile.lastModified();
+        long certModified = certFile.lastModified();
+
+        //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
+        PrivateKey merchantPrivateKey;
+        try (FileInputStream in = new FileInputStream(keyFile)) {
+            merchantPrivateKey = PemUtil.loadPrivateKey(in);
+        }
+        //加载平台证书文件
+        X509Certificate x509Certificate;
+        try (FileInputStream in = new FileInputStream(certFile)) {
+            x509Certificate = PemUtil.loadCertificate(in);
+        }
+        //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
+        List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(50);
+        connectionManager.setDefaultMaxPerRoute(50);
+
+        WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
+                .withWechatPay(wechatPayCertificates);
+        builder.setConnectionManager(connectionManager);
+        builder.evictIdleConnections(60, TimeUnit.SECONDS);
+
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
+        return new Credentials(merchantPrivateKey, builder.build(), keyModified, certModified);
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        retiredClientCloser.shutdownNow();
+        for (CloseableHttpClient client : retiredClients) {
+            closeQuietly(client);
+        }
+        retiredClients.clear();
+        if (credentials != null) {
+            credentials.httpClient.close();
+        }
+    }
+
+    /**
+     * 一次加载的商户私钥及对应的客户端
+     */
+    private static class Credentials {
+        private final PrivateKey privateKey;
+        private final CloseableHttpClient httpClient;
+        private final long keyModified;
+        private final long certModified;
+
+        Credentials(PrivateKey privateKey, CloseableHttpClient httpClient, long keyModified, long certModified) {
+            this.privateKey = privateKey;
+            this.httpClient = httpClient;
+            this.keyModified = keyModified;
+            this.certModified = certModified;
         }
     }
 
@@ -88,13 +226,10 @@ public class WeChatPayUtil {
         httpPost.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
         httpPost.setEntity(new StringEntity(body, "UTF-8"));
 
-        CloseableHttpResponse response = httpClient.execute(httpPost);
-        try {
+        // 只关闭响应，连接归还连接池，客户端继续复用
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
             String bodyAsString = EntityUtils.toString(response.getEntity());
             return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
         }
     }
 
@@ -112,13 +247,9 @@ public class WeChatPayUtil {
         httpGet.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
 
-        CloseableHttpResponse response = httpClient.execute(httpGet);
-        try {
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
             String bodyAsString = EntityUtils.toString(response.getEntity());
             return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
         }
     }
 
@@ -188,7 +319,8 @@ public class WeChatPayUtil {
             byte[] message = signMessage.getBytes();
 
             Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            // 使用已加载的商户私钥，不再每次读取解析私钥文件
+            signature.initSign(getCredentials().privateKey);
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
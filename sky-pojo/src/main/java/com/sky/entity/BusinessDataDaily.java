@@ -0,0 +1,45 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日营业数据汇总
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusinessDataDaily implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    //统计日期
+    private LocalDate date;
+
+    //营业额
+    private Double turnover;
+
+    //有效订单数
+    private Integer validOrderCount;
+
+    //订单总数
+    private Integer totalOrderCount;
+
+    //新增用户数
+    private Integer newUsers;
+
+    //平均客单价
+    private Double unitPrice;
+
+    //汇总时间
+    private LocalDateTime updateTime;
+}
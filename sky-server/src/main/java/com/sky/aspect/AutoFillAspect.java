@@ -4,18 +4,21 @@ import com.sky.annotation.AutoFill;
 import com.sky.constant.AutoFillConstant;
 import com.sky.context.BaseContext;
 import com.sky.enumeration.OperationType;
-import io.lettuce.core.dynamic.annotation.CommandNaming;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 自定义切面，实现公共字段自动填充
@@ -24,6 +27,12 @@ import java.time.LocalDateTime;
 @Component  // 实例化
 @Slf4j
 public class AutoFillAspect {
+
+    /**
+     * 每个实体类的公共字段setter，第一次用到时解析，之后直接复用
+     */
+    private final Map<Class<?>, Setters> settersCache = new ConcurrentHashMap<>();
+
     /**
      * 切入点
      */
@@ -35,8 +44,6 @@ public class AutoFillAspect {
      */
     @Before("autoFullPointCut() ")
     public void autoFill(JoinPoint joinPoint){
-        log.info("开始进行公共字段自动填充...");
-
         // 要做什么事情？拦截了Mapper方法，获得了当前操作的类型。
         // 效果？Service层impl接口中不用给time/id单独赋值，只需给mapper方法添加单独注解。
 
@@ -45,50 +52,79 @@ public class AutoFillAspect {
         AutoFill autoFill = signature.getMethod().getAnnotation(AutoFill.class);// 方法注解对象
         OperationType operationType = autoFill.value();  //获得数据库操作类型
 
-        // 2. 获取当前被拦截方法的参数-实体对象
+        // 2. 获取当前被拦截方法的参数-实体对象或实体集合 (批量插入)
         Object[] args = joinPoint.getArgs();
-        if(args == null || args.length == 0){
+        if(args == null || args.length == 0 || args[0] == null){
              return ;
         }
 
-        Object entity = args[0];
-
         // 3. 获取需要注入的时间、id
         LocalDateTime now = LocalDateTime.now();
         Long currentId = BaseContext.getCurrentId();
 
-        // 4. 根据当前类型，使用反射进行赋值
-        if(operationType==OperationType.INSERT){
-            // 4
-            try {
-                Method setCreateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
-                Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-                Method setCreateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
-                Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
-
-                // 通过反射赋值
-                setCreateUser.invoke(entity,currentId);
-                setUpdateTime.invoke(entity,now);
-                setCreateUser.invoke(entity,currentId);
-                setUpdateTime.invoke(entity,now);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        if (log.isDebugEnabled()) {
+            log.debug("公共字段自动填充，方法：{}，类型：{}", signature.getName(), operationType);
+        }
+
+        // 4. 根据当前类型，通过缓存的setter赋值
+        if (args[0] instanceof Collection) {
+            for (Object entity : (Collection<?>) args[0]) {
+                fill(entity, operationType, now, currentId);
             }
-        }else if(operationType==OperationType.UPDATE){
-            // 2
-            try {
-                Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-                Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
-                // 通过反射赋值
-                setUpdateTime.invoke(entity,now);
-                setUpdateUser.invoke(entity,currentId);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        } else {
+            fill(args[0], operationType, now, currentId);
+        }
+    }
+
+    private void fill(Object entity, OperationType operationType, LocalDateTime now, Long currentId) {
+        if (entity == null) {
+            return;
+        }
+        Setters setters = settersCache.computeIfAbsent(entity.getClass(), Setters::new);
+        try {
+            if (operationType == OperationType.INSERT) {
+                setters.set(setters.setCreateTime, entity, now);
+                setters.set(setters.setCreateUser, entity, currentId);
             }
+            setters.set(setters.setUpdateTime, entity, now);
+            setters.set(setters.setUpdateUser, entity, currentId);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    /**
+     * 一个实体类的公共字段setter，用 MethodHandle 调用，避免每次 getDeclaredMethod 和反射调用的开销
+     * 实体类没有对应字段时为null，跳过
+     */
+    private static class Setters {
 
+        private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+        private final MethodHandle setCreateTime;
+        private final MethodHandle setUpdateTime;
+        private final MethodHandle setCreateUser;
+        private final MethodHandle setUpdateUser;
+
+        Setters(Class<?> clazz) {
+            setCreateTime = find(clazz, AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+            setUpdateTime = find(clazz, AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+            setCreateUser = find(clazz, AutoFillConstant.SET_CREATE_USER, Long.class);
+            setUpdateUser = find(clazz, AutoFillConstant.SET_UPDATE_USER, Long.class);
         }
-    }
 
+        void set(MethodHandle setter, Object entity, Object value) throws Throwable {
+            if (setter != null) {
+                setter.invoke(entity, value);
+            }
+        }
 
+        private static MethodHandle find(Class<?> clazz, String name, Class<?> type) {
+            try {
+                return LOOKUP.findVirtual(clazz, name, MethodType.methodType(void.class, type));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+    }
 }
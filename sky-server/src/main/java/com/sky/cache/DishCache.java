@@ -0,0 +1,17 @@
+package com.sky.cache;
+
+import com.sky.vo.DishVO;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 菜品缓存，key：dish_ + categoryId
+ */
+@Component
+public class DishCache extends MenuCache<List<DishVO>> {
+
+    public DishCache() {
+        super("dish");
+    }
+}
@@ -0,0 +1,233 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 按分类缓存的菜单数据，两级缓存：
+ * L1 为进程内 Caffeine 缓存，命中时没有网络开销也不需要反序列化；
+ * L2 为 Redis，每个分类一个key (name_ + categoryId)，写入时把key登记到 name_keys 集合，
+ * 清理时只删除受影响分类的key，全量清理也只遍历登记过的key，不使用阻塞Redis的 KEYS 命令。
+ * 清理时通过 Redis 发布订阅通知所有节点清理各自的 L1 缓存。
+ * 两级缓存都未命中时，同一个key在本节点只有一个线程查询数据库，其他线程等待其结果。
+ *
+ * @param <V> 缓存值类型
+ */
+@Slf4j
+public abstract class MenuCache<V> {
+
+    /**
+     * 缓存清理通知频道，消息格式：name:categoryId,categoryId 或 name:*
+     */
+    public static final String EVICT_CHANNEL = "menu_cache_evict";
+
+    private static final String EVICT_ALL = "*";
+
+    private static final long LOCAL_MAXIMUM_SIZE = 1000;
+
+    private static final Duration LOCAL_EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final String name;
+
+    private final Cache<Long, V> localCache = Caffeine.newBuilder()
+            .maximumSize(LOCAL_MAXIMUM_SIZE)
+            .expireAfterWrite(LOCAL_EXPIRE_AFTER_WRITE)
+            .build();
+
+    /**
+     * 正在加载中的key，同一个key的并发加载合并为一次
+     */
+    private final ConcurrentHashMap<Long, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 清理次数，加载期间发生过清理时不把加载结果写入缓存，避免写回旧数据
+     */
+    private final AtomicLong evictGeneration = new AtomicLong();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    protected MenuCache(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 查询分类下的缓存，先查 L1 再查 L2，L2 命中时回填 L1
+     * @param categoryId
+     * @return 未命中时返回null
+     */
+    public V get(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        V value = localCache.getIfPresent(categoryId);
+        if (value != null) {
+            record("l1_hit");
+            return value;
+        }
+        value = (V) redisTemplate.opsForValue().get(buildKey(categoryId));
+        if (value != null) {
+            record("l2_hit");
+            localCache.put(categoryId, value);
+        }
+        return value;
+    }
+
+    /**
+     * 查询分类下的缓存，未命中时通过 loader 加载并写入缓存
+     * 同一个key的并发未命中只执行一次 loader，其余请求等待同一个结果
+     * @param categoryId
+     * @param loader
+     * @return
+     */
+    public V get(Long categoryId, Supplier<V> loader) {
+        if (categoryId == null) {
+            return loader.get();
+        }
+        V value = get(categoryId);
+        if (value != null) {
+            return value;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(categoryId, future);
+        if (inFlight != null) {
+            record("coalesced");
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            long generation = evictGeneration.get();
+            value = loader.get();
+            record("loaded");
+            if (generation == evictGeneration.get()) {
+                put(categoryId, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(categoryId, future);
+        }
+    }
+
+    /**
+     * 写入分类下的缓存
+     * @param categoryId
+     * @param value
+     */
+    public void put(Long categoryId, V value) {
+        String key = buildKey(categoryId);
+        redisTemplate.opsForSet().add(buildKeySetName(), key);
+        redisTemplate.opsForValue().set(key, value);
+        localCache.put(categoryId, value);
+    }
+
+    /**
+     * 清理指定分类的缓存
+     * @param categoryIds
+     */
+    public void evict(Collection<Long> categoryIds) {
+        List<Long> ids = categoryIds.stream().filter(id -> id != null).distinct().collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<String> keys = ids.stream().map(this::buildKey).collect(Collectors.toList());
+        log.info("清理{}缓存：{}", name, keys);
+        evictGeneration.incrementAndGet();
+        redisTemplate.delete(keys);
+        redisTemplate.opsForSet().remove(buildKeySetName(), keys.toArray());
+
+        localCache.invalidateAll(ids);
+        publish(ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    /**
+     * 清理全部缓存
+     */
+    public void evictAll() {
+        Set<String> keys = redisTemplate.opsForSet().members(buildKeySetName());
+        log.info("清理全部{}缓存：{}", name, keys);
+        evictGeneration.incrementAndGet();
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+        redisTemplate.delete(buildKeySetName());
+
+        localCache.invalidateAll();
+        publish(EVICT_ALL);
+    }
+
+    /**
+     * 收到其他节点的清理通知后，清理本节点的 L1 缓存
+     * @param target 分类id列表，或 * 表示全部
+     */
+    void evictLocal(String target) {
+        evictGeneration.incrementAndGet();
+        if (EVICT_ALL.equals(target)) {
+            localCache.invalidateAll();
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : target.split(",")) {
+            ids.add(Long.valueOf(id));
+        }
+        localCache.invalidateAll(ids);
+    }
+
+    /**
+     * 记录缓存请求结果：l1_hit、l2_hit、loaded（查询了数据库）、coalesced（等待了其他线程的加载结果）
+     * @param result
+     */
+    private void record(String result) {
+        meterRegistry.counter("menu.cache.requests", "cache", name, "result", result).increment();
+    }
+
+    private void publish(String target) {
+        stringRedisTemplate.convertAndSend(EVICT_CHANNEL, name + ":" + target);
+    }
+
+    private String buildKey(Long categoryId) {
+        return name + "_" + categoryId;
+    }
+
+    private String buildKeySetName() {
+        return name + "_keys";
+    }
+}
@@ -0,0 +1,37 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 监听菜单缓存清理通知，清理本节点对应的 L1 缓存
+ */
+@Component
+@Slf4j
+public class MenuCacheListener implements MessageListener {
+
+    @Autowired
+    private List<MenuCache<?>> menuCaches;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(':');
+        if (index < 0) {
+            return;
+        }
+        String name = body.substring(0, index);
+        String target = body.substring(index + 1);
+        for (MenuCache<?> menuCache : menuCaches) {
+            if (menuCache.getName().equals(name)) {
+                menuCache.evictLocal(target);
+            }
+        }
+    }
+}
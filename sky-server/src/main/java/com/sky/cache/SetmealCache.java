@@ -0,0 +1,17 @@
+package com.sky.cache;
+
+import com.sky.entity.Setmeal;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 套餐缓存，key：setmeal_ + categoryId
+ */
+@Component
+public class SetmealCache extends MenuCache<List<Setmeal>> {
+
+    public SetmealCache() {
+        super("setmeal");
+    }
+}
@@ -0,0 +1,54 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 购物车存储在 shopping_cart 表
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.shopping-cart", name = "storage", havingValue = "db", matchIfMissing = true)
+public class DbShoppingCartStore implements ShoppingCartStore {
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .userId(userId)
+                .build();
+        return shoppingCartMapper.list(shoppingCart);
+    }
+
+    @Override
+    public boolean increment(ShoppingCart shoppingCart) {
+        return shoppingCartMapper.incrementNumber(shoppingCart) > 0;
+    }
+
+    @Override
+    public void insert(ShoppingCart shoppingCart) {
+        // 并发添加同一个新商品时，唯一键冲突的一方累加数量，不会产生重复行
+        shoppingCartMapper.insertOrIncrement(shoppingCart);
+    }
+
+    @Override
+    public void insertBatch(List<ShoppingCart> shoppingCartList) {
+        shoppingCartMapper.insertBatch(shoppingCartList);
+    }
+
+    @Override
+    public void clean(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+
+    @Override
+    public void flush() {
+        // 直接读写数据库，没有需要回写的数据
+    }
+}
@@ -0,0 +1,201 @@
+package com.sky.cart;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.ShoppingCartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车存储在 Redis，每个用户两个 hash：
+ * shopping_cart_ + userId 保存商品数量，通过 HINCRBY 原子累加；
+ * shopping_cart_item_ + userId 保存商品名称、图片、价格等信息。
+ * hash 的 field 为 dishId:setmealId:dishFlavor。
+ * 开启持久化时，变更过的用户记录在 shopping_cart_dirty 集合中，由定时任务异步回写 shopping_cart 表。
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.shopping-cart", name = "storage", havingValue = "redis")
+@Slf4j
+public class RedisShoppingCartStore implements ShoppingCartStore {
+
+    private static final String NUMBER_KEY_PREFIX = "shopping_cart_";
+
+    private static final String ITEM_KEY_PREFIX = "shopping_cart_item_";
+
+    private static final String DIRTY_KEY = "shopping_cart_dirty";
+
+    /**
+     * 每次回写的最大用户数
+     */
+    private static final long FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 商品已在购物车中时数量加1，判断和累加在一个脚本中原子执行，
+     * 避免与清空购物车交错后留下没有商品信息的数量
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[2], ARGV[1]) == 1 then " +
+                    "return redis.call('hincrby', KEYS[1], ARGV[1], 1) else return 0 end", Long.class);
+
+    /**
+     * 保存商品信息（已存在则保留）并累加数量，原子执行
+     */
+    private static final DefaultRedisScript<Long> INSERT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hsetnx', KEYS[2], ARGV[1], ARGV[2]) " +
+                    "return redis.call('hincrby', KEYS[1], ARGV[1], ARGV[3])", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    @Autowired
+    private ShoppingCartProperties shoppingCartProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        Map<Object, Object> numbers = stringRedisTemplate.opsForHash().entries(NUMBER_KEY_PREFIX + userId);
+        Map<Object, Object> items = stringRedisTemplate.opsForHash().entries(ITEM_KEY_PREFIX + userId);
+
+        List<ShoppingCart> list = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : numbers.entrySet()) {
+            Object item = items.get(entry.getKey());
+            int number = Integer.parseInt((String) entry.getValue());
+            if (item == null || number <= 0) {
+                continue;
+            }
+            ShoppingCart shoppingCart = JSON.parseObject((String) item, ShoppingCart.class);
+            shoppingCart.setUserId(userId);
+            shoppingCart.setNumber(number);
+            list.add(shoppingCart);
+        }
+        list.sort(Comparator.comparing(ShoppingCart::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder())));
+        return list;
+    }
+
+    @Override
+    public boolean increment(ShoppingCart shoppingCart) {
+        Long userId = shoppingCart.getUserId();
+        String field = buildField(shoppingCart);
+        Long number = stringRedisTemplate.execute(INCREMENT_SCRIPT,
+                Arrays.asList(NUMBER_KEY_PREFIX + userId, ITEM_KEY_PREFIX + userId), field);
+        if (number == null || number == 0) {
+            return false;
+        }
+        markDirty(userId);
+        return true;
+    }
+
+    @Override
+    public void insert(ShoppingCart shoppingCart) {
+        Long userId = shoppingCart.getUserId();
+        String field = buildField(shoppingCart);
+
+        // 商品信息不包含数量，数量用 HINCRBY 累加，并发添加同一个新商品时数量也不会丢失
+        ShoppingCart item = new ShoppingCart();
+        item.setName(shoppingCart.getName());
+        item.setImage(shoppingCart.getImage());
+        item.setDishId(shoppingCart.getDishId());
+        item.setSetmealId(shoppingCart.getSetmealId());
+        item.setDishFlavor(shoppingCart.getDishFlavor());
+        item.setAmount(shoppingCart.getAmount());
+        item.setCreateTime(shoppingCart.getCreateTime());
+
+        stringRedisTemplate.execute(INSERT_SCRIPT, Arrays.asList(NUMBER_KEY_PREFIX + userId, ITEM_KEY_PREFIX + userId),
+                field, JSON.toJSONString(item), String.valueOf(shoppingCart.getNumber()));
+        markDirty(userId);
+    }
+
+    @Override
+    public void insertBatch(List<ShoppingCart> shoppingCartList) {
+        for (ShoppingCart shoppingCart : shoppingCartList) {
+            insert(shoppingCart);
+        }
+    }
+
+    @Override
+    public void clean(Long userId) {
+        // 在事务中（如下单）时，等事务提交后再清空，避免下单失败购物车却被清空
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doClean(userId);
+                }
+            });
+        } else {
+            doClean(userId);
+        }
+    }
+
+    /**
+     * 将变更过的用户购物车回写 shopping_cart 表
+     */
+    @Override
+    public void flush() {
+        if (!shoppingCartProperties.isPersist()) {
+            return;
+        }
+        List<String> userIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, FLUSH_BATCH_SIZE);
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        for (String id : userIds) {
+            Long userId = Long.valueOf(id);
+            List<ShoppingCart> list = list(userId);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    shoppingCartMapper.deleteByUserId(userId);
+                    if (!list.isEmpty()) {
+                        shoppingCartMapper.insertBatch(list);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 回写失败的用户放回集合，下次重试
+                log.error("购物车回写失败，userId：{}", userId, e);
+                stringRedisTemplate.opsForSet().add(DIRTY_KEY, id);
+            }
+        }
+        log.info("购物车回写完成，共{}个用户", userIds.size());
+    }
+
+    private void doClean(Long userId) {
+        // 一条 DEL 同时删除两个 hash
+        stringRedisTemplate.delete(Arrays.asList(NUMBER_KEY_PREFIX + userId, ITEM_KEY_PREFIX + userId));
+        markDirty(userId);
+    }
+
+    private void markDirty(Long userId) {
+        if (shoppingCartProperties.isPersist()) {
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+        }
+    }
+
+    private String buildField(ShoppingCart shoppingCart) {
+        return nullToEmpty(shoppingCart.getDishId()) + ":"
+                + nullToEmpty(shoppingCart.getSetmealId()) + ":"
+                + nullToEmpty(shoppingCart.getDishFlavor());
+    }
+
+    private String nullToEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * 购物车存储
+ * 商品以 userId + dishId + setmealId + dishFlavor 唯一确定
+ */
+public interface ShoppingCartStore {
+
+    /**
+     * 查询用户购物车
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 已有的商品数量+1
+     * @param shoppingCart 包含 userId、dishId、setmealId、dishFlavor
+     * @return 购物车中没有该商品时返回false
+     */
+    boolean increment(ShoppingCart shoppingCart);
+
+    /**
+     * 添加新商品
+     * @param shoppingCart
+     */
+    void insert(ShoppingCart shoppingCart);
+
+    /**
+     * 批量添加商品
+     * @param shoppingCartList
+     */
+    void insertBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 清空用户购物车
+     * @param userId
+     */
+    void clean(Long userId);
+
+    /**
+     * 将尚未持久化的购物车写入数据库
+     */
+    void flush();
+}
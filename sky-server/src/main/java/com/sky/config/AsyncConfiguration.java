@@ -0,0 +1,26 @@
+package com.sky.config;
+
+import com.sky.context.BaseContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * 配置类，开启 @Async 异步任务
+ * 异步任务使用 Spring Boot 自动配置的 applicationTaskExecutor 线程池 (spring.task.execution)，
+ * 该线程池会使用容器中的 TaskDecorator，提交任务时把当前登录用户id带到执行线程；
+ * 自行用 CompletableFuture 提交任务时，注入该线程池 (ThreadPoolTaskExecutor) 作为 executor 即可。
+ */
+@Configuration
+@EnableAsync(proxyTargetClass = true)
+@Slf4j
+public class AsyncConfiguration {
+
+    @Bean
+    public TaskDecorator baseContextTaskDecorator() {
+        log.info("开始创建异步任务装饰器，传递当前登录用户id");
+        return BaseContext::wrap;
+    }
+}
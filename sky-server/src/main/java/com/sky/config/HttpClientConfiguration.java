@@ -0,0 +1,42 @@
+package com.sky.config;
+
+import com.sky.properties.HttpClientProperties;
+import com.sky.utils.HttpClientUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，按 sky.http-client 初始化 HttpClientUtil 的连接池，并注册连接池监控指标
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfiguration implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private HttpClientProperties httpClientProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void afterPropertiesSet() {
+        log.info("开始创建HttpClient连接池：{}", httpClientProperties);
+        HttpClientUtil.init(httpClientProperties);
+
+        // 已租用、等待获取、空闲可用的连接数
+        Gauge.builder("http.client.pool.leased", () -> HttpClientUtil.getPoolStats().getLeased()).register(meterRegistry);
+        Gauge.builder("http.client.pool.pending", () -> HttpClientUtil.getPoolStats().getPending()).register(meterRegistry);
+        Gauge.builder("http.client.pool.available", () -> HttpClientUtil.getPoolStats().getAvailable()).register(meterRegistry);
+        Gauge.builder("http.client.pool.max", () -> HttpClientUtil.getPoolStats().getMax()).register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        HttpClientUtil.close();
+    }
+}
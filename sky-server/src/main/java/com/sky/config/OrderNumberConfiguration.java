@@ -0,0 +1,35 @@
+package com.sky.config;
+
+import com.sky.properties.OrderNumberProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 配置类，用于创建订单号生成器
+ */
+@Configuration
+@Slf4j
+public class OrderNumberConfiguration {
+
+    @Bean
+    public WorkerIdLease workerIdLease(StringRedisTemplate stringRedisTemplate) {
+        return new WorkerIdLease(stringRedisTemplate);
+    }
+
+    @Bean
+    public SnowflakeIdGenerator orderNumberGenerator(OrderNumberProperties orderNumberProperties,
+                                                     WorkerIdLease workerIdLease) {
+        Long workerId = orderNumberProperties.getWorkerId();
+        if (workerId != null) {
+            log.info("开始创建订单号生成器，节点号：{}", workerId);
+            return new SnowflakeIdGenerator(workerId);
+        }
+        // 未配置时从 Redis 租用一个存活节点都未使用的节点号，租约失效期间不生成订单号
+        workerId = workerIdLease.acquire();
+        log.info("开始创建订单号生成器，租用节点号：{}", workerId);
+        return new SnowflakeIdGenerator(workerId, workerIdLease::isHeld);
+    }
+}
@@ -59,6 +59,9 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sky.cache.MenuCache;
+import com.sky.cache.MenuCacheListener;
+import com.sky.websocket.OrderEventBus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.EnableCaching; // 确保这里开启了缓存，或者在启动类开启
 import org.springframework.context.annotation.Bean;
@@ -67,6 +70,8 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -123,6 +128,22 @@ public class RedisConfiguration {
                 .build();
     }
 
+    /**
+     * Redis 消息监听容器
+     * 用于接收菜单缓存清理通知，清理本节点的进程内缓存；
+     * 以及接收订单事件，推送给本节点上连接的 WebSocket 客户端
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       MenuCacheListener menuCacheListener,
+                                                                       OrderEventBus orderEventBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(menuCacheListener, new ChannelTopic(MenuCache.EVICT_CHANNEL));
+        container.addMessageListener(orderEventBus, new ChannelTopic(OrderEventBus.CHANNEL));
+        return container;
+    }
+
     /**
      * 提取公共的 ObjectMapper 配置
      * 作用：让 Redis 能够将 Java 对象(包括时间)转成 JSON 字符串
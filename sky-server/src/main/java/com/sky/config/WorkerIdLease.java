@@ -0,0 +1,142 @@
+package com.sky.config;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成器节点号租约
+ * 启动时用 SET NX PX 抢占 order_number_worker_id: + 节点号，定时续期，关闭时释放；
+ * 节点宕机后租约过期，节点号才能被其他节点使用，存活的节点之间节点号不会重复。
+ * 租约只在最近一次成功抢占或续期后的 LEASE_MILLIS 内有效，续期失败或节点号被其他节点占用时
+ * isHeld 返回 false，订单号生成器随之拒绝生成，直到重新抢占到该节点号。
+ */
+@Slf4j
+public class WorkerIdLease implements DisposableBean {
+
+    private static final String KEY_PREFIX = "order_number_worker_id:";
+
+    /**
+     * 抢占起点，依次递增，使各节点从不同的节点号开始尝试
+     */
+    private static final String CURSOR_KEY = "order_number_worker_id";
+
+    private static final long LEASE_MILLIS = 60000;
+
+    /**
+     * 只有持有者才能续期
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    /**
+     * 只有持有者才能释放
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    /**
+     * 当前节点标识 pid@hostname:随机数，区分同一主机上重启前后的进程
+     */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID();
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "worker-id-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private volatile Long workerId;
+
+    /**
+     * 租约有效期截止时间 (毫秒)，按发起抢占或续期前的时间计算，不晚于 Redis 中键的过期时间
+     */
+    private volatile long validUntil;
+
+    public WorkerIdLease(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 抢占一个空闲的节点号并开始续期
+     * @return 节点号
+     */
+    public synchronized long acquire() {
+        if (workerId != null) {
+            return workerId;
+        }
+        Long cursor = stringRedisTemplate.opsForValue().increment(CURSOR_KEY);
+        long start = cursor == null ? 0 : cursor;
+        for (long i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+            long id = (start + i) & SnowflakeIdGenerator.MAX_WORKER_ID;
+            long now = System.currentTimeMillis();
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(KEY_PREFIX + id, nodeId, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(acquired)) {
+                workerId = id;
+                validUntil = now + LEASE_MILLIS;
+                renewer.scheduleWithFixedDelay(this::renew, LEASE_MILLIS / 3, LEASE_MILLIS / 3, TimeUnit.MILLISECONDS);
+                return id;
+            }
+        }
+        throw new IllegalStateException("没有空闲的订单号节点号，请配置 sky.order-number.worker-id");
+    }
+
+    /**
+     * 租约是否有效，无效期间不能使用该节点号生成ID
+     * @return
+     */
+    public boolean isHeld() {
+        return System.currentTimeMillis() < validUntil;
+    }
+
+    /**
+     * 续期；Redis 短暂不可用导致租约过期时重新抢占同一个节点号，
+     * 已被其他节点占用时标记租约失效，之后每次续期都尝试重新抢占
+     */
+    void renew() {
+        String key = KEY_PREFIX + workerId;
+        try {
+            long now = System.currentTimeMillis();
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                    Collections.singletonList(key), nodeId, String.valueOf(LEASE_MILLIS));
+            if (renewed != null && renewed > 0) {
+                validUntil = now + LEASE_MILLIS;
+                return;
+            }
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, nodeId, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(acquired)) {
+                validUntil = now + LEASE_MILLIS;
+                log.warn("订单号节点号{}的租约已过期，已重新抢占", workerId);
+            } else {
+                validUntil = 0;
+                log.error("订单号节点号{}已被其他节点占用，暂停生成订单号：{}", workerId,
+                        stringRedisTemplate.opsForValue().get(key));
+            }
+        } catch (Exception e) {
+            log.error("订单号节点号{}续期失败", workerId, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        renewer.shutdownNow();
+        if (workerId != null) {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(KEY_PREFIX + workerId), nodeId);
+        }
+    }
+}
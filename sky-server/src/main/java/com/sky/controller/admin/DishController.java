@@ -1,5 +1,6 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.DishCache;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
@@ -11,9 +12,10 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -30,7 +32,7 @@ public class DishController  {
     private DishService dishService;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private DishCache dishCache;
 
     @PostMapping
     @ApiOperation("新增菜品")
@@ -39,8 +41,7 @@ public class DishController  {
         dishService.saveWithFlavor(dishDTO);
 
         // 精确清理：只清理该分类下的缓存
-        String key = "dish_" + dishDTO.getCategoryId();
-        cleanCache(key);
+        dishCache.evict(Collections.singletonList(dishDTO.getCategoryId()));
 
         return Result.success();
     }
@@ -68,12 +69,10 @@ public class DishController  {
     @ApiOperation("批量删除菜品")
     public Result delete(@RequestParam List<Long> ids) {
         log.info("批量删除菜品,{}",ids);
+        // 删除前先查出菜品所属分类，删除后只清理这些分类的缓存
+        List<Long> categoryIds = dishService.getCategoryIdsByIds(ids);
         dishService.deleteBatch(ids);
-
-        // 缓存处理：由于一个菜品可能在多个分类中，简单来做把所有dish_全删除了就行
-        // 后台管理系统来说，管理员删除菜品的操作频率不高，
-        // 全量清理：所有以 dish_ 开头的key
-        cleanCache("dish_*");
+        dishCache.evict(categoryIds);
 
         return Result.success();
     }
@@ -95,10 +94,11 @@ public class DishController  {
     @ApiOperation("修改菜品")
     public Result update(@RequestBody DishDTO dishDTO) {
         log.info("修改菜品,{}", dishDTO);
+        // 菜品可能被改到其他分类，原分类和新分类的缓存都要清理
+        Set<Long> categoryIds = new HashSet<>(dishService.getCategoryIdsByIds(Collections.singletonList(dishDTO.getId())));
+        categoryIds.add(dishDTO.getCategoryId());
         dishService.updateWithFlavor(dishDTO);
-
-        // 全量清理：所有以 dish_ 开头的key
-        cleanCache("dish_*");
+        dishCache.evict(categoryIds);
 
         return Result.success();
 
@@ -124,25 +124,10 @@ public class DishController  {
         log.info("根据分类id修改菜品销售状态：{}", status);
         dishService.updateStatusById(status,id);
 
-        // 全量清理：所有以 dish_ 开头的key
-        cleanCache("dish_*");
+        // 只清理该菜品所属分类的缓存
+        dishCache.evict(dishService.getCategoryIdsByIds(Collections.singletonList(id)));
 
         return Result.success();
     }
 
-    /**
-     * 清理缓存的通用方法
-     * @param pattern Redis key的匹配模式，例如：dish_*
-     */
-    private void cleanCache(String pattern){
-
-        log.info(" > 进行了一次缓存清理，此时Redis中的缓存发生了更新 < ");
-
-        // 1. 获取所有匹配的 Key
-        Set keys = redisTemplate.keys(pattern);
-
-        // 2. 删除这些 Key
-        redisTemplate.delete(keys);
-    }
-
 }
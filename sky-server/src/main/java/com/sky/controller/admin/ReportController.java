@@ -87,13 +87,23 @@ public class ReportController {
 
     /**
      * 5. 导出运营数据报表 (Excel)
+     * 不传时间段时默认导出最近30天
+     * @param begin
+     * @param end
      * @param response 用于回写文件流
      */
     @GetMapping("/export")
     @ApiOperation("导出运营数据报表")
-    public void export(HttpServletResponse response) {
-        log.info("导出运营数据报表");
-        reportService.exportBusinessData(response);
+    public void export(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            HttpServletResponse response) {
+        log.info("导出运营数据报表：{}, {}", begin, end);
+        if (begin == null || end == null) {
+            reportService.exportBusinessData(response);
+        } else {
+            reportService.exportBusinessData(begin, end, response);
+        }
     }
 
 
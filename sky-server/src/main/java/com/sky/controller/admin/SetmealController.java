@@ -1,5 +1,6 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.SetmealCache;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Dish;
@@ -12,10 +13,12 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/setmeal")
@@ -26,6 +29,9 @@ public class SetmealController {
     @Autowired
     private SetmealService setmealService;
 
+    @Autowired
+    private SetmealCache setmealCache;
+
     /**
      * 新增套餐
      * @param setmealDTO
@@ -33,9 +39,9 @@ public class SetmealController {
      */
     @PostMapping
     @ApiOperation("新增套餐")
-    @CacheEvict(cacheNames = "setmealCache",key="#setmealDTO.categoryId")
     public Result save(@RequestBody SetmealDTO setmealDTO) {
         setmealService.saveWithDish(setmealDTO);
+        setmealCache.evict(Collections.singletonList(setmealDTO.getCategoryId()));
         return Result.success();
     }
 
@@ -58,10 +64,12 @@ public class SetmealController {
      */
     @DeleteMapping
     @ApiOperation("批量删除套餐")
-    @CacheEvict(cacheNames = "setmealCache",allEntries = true)
     public Result delete(@RequestParam List<Long> ids) {
         log.info("批量删除套餐,...{}",ids);
+        // 删除前先查出套餐所属分类，删除后只清理这些分类的缓存
+        List<Long> categoryIds = setmealService.getCategoryIdsByIds(ids);
         setmealService.deleteBatch(ids);
+        setmealCache.evict(categoryIds);
         return Result.success();
     }
     /**
@@ -84,19 +92,22 @@ public class SetmealController {
      */
     @PutMapping
     @ApiOperation("修改套餐")
-    @CacheEvict(cacheNames = "setmealCache",allEntries = true)
     public Result update(@RequestBody SetmealDTO setmealDTO) {
+        // 套餐可能被改到其他分类，原分类和新分类的缓存都要清理
+        Set<Long> categoryIds = new HashSet<>(setmealService.getCategoryIdsByIds(Collections.singletonList(setmealDTO.getId())));
+        categoryIds.add(setmealDTO.getCategoryId());
         setmealService.update(setmealDTO);
+        setmealCache.evict(categoryIds);
         return Result.success();
 
     }
 
     @PostMapping("/status/{status}")
     @ApiOperation("修改套餐销售状态")
-    @CacheEvict(cacheNames = "setmealCache",allEntries = true)
     public Result updateStatus(@PathVariable Integer status,Long id){
         log.info("根据套餐id修改套餐销售状态：{}", status);
         setmealService.updateStatusById(status,id);
+        setmealCache.evict(setmealService.getCategoryIdsByIds(Collections.singletonList(id)));
         return Result.success();
     }
 }
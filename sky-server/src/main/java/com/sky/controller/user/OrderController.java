@@ -1,8 +1,10 @@
 package com.sky.controller.user;
 
+import com.sky.context.BaseContext;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.dto.OrdersPaymentDTO;
 import com.sky.dto.OrdersSubmitDTO;
+import com.sky.idempotent.OrderSubmitIdempotency;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
@@ -24,6 +26,9 @@ public class OrderController {
     @Autowired
     private OrderService orderservice;
 
+    @Autowired
+    private OrderSubmitIdempotency orderSubmitIdempotency;
+
     /**
      * 用户下单接口
      * @param ordersSubmitDTO
@@ -31,10 +36,13 @@ public class OrderController {
      */
     @PostMapping("/submit")
     @ApiOperation("用户下单接口")
-    public Result<OrderSubmitVO> submit(@RequestBody  OrdersSubmitDTO ordersSubmitDTO) {
+    public Result<OrderSubmitVO> submit(@RequestBody  OrdersSubmitDTO ordersSubmitDTO,
+                                        @RequestHeader(value = OrderSubmitIdempotency.HEADER, required = false) String idempotencyKey) {
 
-        log.info("用户下单，{}", ordersSubmitDTO);
-        OrderSubmitVO orderSubmitVO= orderservice.submitOrder(ordersSubmitDTO);
+        log.info("用户下单，{}，幂等键：{}", ordersSubmitDTO, idempotencyKey);
+        // 客户端超时重试携带同一个幂等键，只下单一次
+        OrderSubmitVO orderSubmitVO = orderSubmitIdempotency.submit(BaseContext.getCurrentId(), idempotencyKey,
+                () -> orderservice.submitOrder(ordersSubmitDTO));
 
         return Result.success(orderSubmitVO);
     }
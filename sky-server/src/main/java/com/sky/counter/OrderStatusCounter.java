@@ -0,0 +1,227 @@
+package com.sky.counter;
+
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各状态订单数量计数器，工作台和订单统计直接读取，不再每次 count(*) 扫描订单表
+ * order_status_count 保存全部订单各状态的数量；order_status_count: + 日期 保存当天下单的订单各状态数量及总数。
+ * 订单每次状态变化时 HINCRBY 原子增减 (在事务中时等事务提交后)，并由 OrderTask 定时按数据库重新校准，修正宕机等造成的偏差。
+ */
+@Component
+@Slf4j
+public class OrderStatusCounter {
+
+    private static final String KEY = "order_status_count";
+
+    private static final String DAY_KEY_PREFIX = "order_status_count:";
+
+    /**
+     * 当天订单总数字段
+     */
+    private static final String ALL = "all";
+
+    /**
+     * 订单状态1~6
+     */
+    private static final int MAX_STATUS = Orders.CANCELLED;
+
+    /**
+     * 当天计数器保留时间 (秒)
+     */
+    private static final long DAY_KEY_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    /**
+     * 校准时原子替换两个计数器，读取方不会看到只写了一半的计数
+     * ARGV[1] 当天计数器有效期，ARGV[2] 全部订单计数器的参数个数，其后依次为两个计数器的字段和值
+     */
+    private static final DefaultRedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "local n = tonumber(ARGV[2]) " +
+                    "redis.call('del', KEYS[1], KEYS[2]) " +
+                    "redis.call('hmset', KEYS[1], unpack(ARGV, 3, 2 + n)) " +
+                    "redis.call('hmset', KEYS[2], unpack(ARGV, 3 + n)) " +
+                    "redis.call('expire', KEYS[2], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    /**
+     * 新订单
+     * @param orderTime 下单时间
+     */
+    public void created(LocalDateTime orderTime) {
+        afterCommit(() -> {
+            stringRedisTemplate.opsForHash().increment(KEY, String.valueOf(Orders.PENDING_PAYMENT), 1);
+            if (isToday(orderTime)) {
+                String dayKey = dayKey(orderTime.toLocalDate());
+                stringRedisTemplate.opsForHash().increment(dayKey, String.valueOf(Orders.PENDING_PAYMENT), 1);
+                stringRedisTemplate.opsForHash().increment(dayKey, ALL, 1);
+                stringRedisTemplate.expire(dayKey, DAY_KEY_SECONDS, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    /**
+     * 订单状态变化
+     * @param orderTime 下单时间
+     * @param from 原状态
+     * @param to 新状态
+     */
+    public void transition(LocalDateTime orderTime, Integer from, Integer to) {
+        if (from == null || from.equals(to)) {
+            return;
+        }
+        afterCommit(() -> {
+            stringRedisTemplate.opsForHash().increment(KEY, String.valueOf(from), -1);
+            stringRedisTemplate.opsForHash().increment(KEY, String.valueOf(to), 1);
+            if (isToday(orderTime)) {
+                String dayKey = dayKey(orderTime.toLocalDate());
+                stringRedisTemplate.opsForHash().increment(dayKey, String.valueOf(from), -1);
+                stringRedisTemplate.opsForHash().increment(dayKey, String.valueOf(to), 1);
+            }
+        });
+    }
+
+    /**
+     * 查询全部订单中各状态的数量
+     * @param statuses
+     * @return 与statuses一一对应
+     */
+    public List<Integer> count(Integer... statuses) {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY))) {
+            reconcile();
+        }
+        return read(KEY, statuses);
+    }
+
+    /**
+     * 查询当天下单的订单中各状态的数量
+     * @param statuses
+     * @return 与statuses一一对应
+     */
+    public List<Integer> countToday(Integer... statuses) {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY))) {
+            reconcile();
+        }
+        return read(dayKey(LocalDate.now()), statuses);
+    }
+
+    /**
+     * 查询当天下单的订单总数
+     * @return
+     */
+    public Integer countTodayAll() {
+        Object value = stringRedisTemplate.opsForHash().get(dayKey(LocalDate.now()), ALL);
+        return value == null ? 0 : Integer.valueOf(value.toString());
+    }
+
+    /**
+     * 启动时计数器不存在则按数据库初始化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY))) {
+            reconcile();
+        }
+    }
+
+    /**
+     * 按数据库重新计算计数器，两个计数器在 Redis 中一次原子替换
+     * 查询数据库之后、写入 Redis 之前提交的状态变化，其 HINCRBY 会被本次写入覆盖，
+     * 计数器在下一次校准前可能有少量偏差；因此只在启动和定时任务中校准，不在业务操作后调用。
+     */
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        Map<String, String> total = toHash(orderMapper.countGroupByStatus(null), false);
+        Map<String, String> day = toHash(orderMapper.countGroupByStatus(LocalDateTime.of(today, LocalTime.MIN)), true);
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(DAY_KEY_SECONDS));
+        args.add(String.valueOf(total.size() * 2));
+        total.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        day.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        stringRedisTemplate.execute(REPLACE_SCRIPT, Arrays.asList(KEY, dayKey(today)), args.toArray());
+        log.info("订单状态计数器已按数据库校准");
+    }
+
+    private Map<String, String> toHash(List<OrderStatusCountDTO> counts, boolean withAll) {
+        Map<String, String> hash = new HashMap<>();
+        // 没有订单的状态也写入0，覆盖旧值
+        for (int status = Orders.PENDING_PAYMENT; status <= MAX_STATUS; status++) {
+            hash.put(String.valueOf(status), "0");
+        }
+        long all = 0;
+        for (OrderStatusCountDTO count : counts) {
+            hash.put(String.valueOf(count.getStatus()), String.valueOf(count.getCount()));
+            all += count.getCount();
+        }
+        if (withAll) {
+            hash.put(ALL, String.valueOf(all));
+        }
+        return hash;
+    }
+
+    private List<Integer> read(String key, Integer... statuses) {
+        List<Object> fields = new ArrayList<>();
+        for (Integer status : statuses) {
+            fields.add(String.valueOf(status));
+        }
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(key, fields);
+        List<Integer> counts = new ArrayList<>();
+        for (Object value : values) {
+            counts.add(value == null ? 0 : Integer.valueOf(value.toString()));
+        }
+        return counts;
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    private boolean isToday(LocalDateTime orderTime) {
+        return orderTime != null && orderTime.toLocalDate().equals(LocalDate.now());
+    }
+
+    private String dayKey(LocalDate date) {
+        return DAY_KEY_PREFIX + date;
+    }
+}
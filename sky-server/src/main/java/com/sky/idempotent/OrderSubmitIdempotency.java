@@ -0,0 +1,120 @@
+package com.sky.idempotent;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.OrderBusinessException;
+import com.sky.vo.OrderSubmitVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 用户下单幂等控制
+ * 客户端每次下单生成一个幂等键，超时重试时携带同一个键；同一用户同一幂等键只真正下单一次，
+ * 重复请求直接返回第一次的下单结果，不再读写订单表
+ */
+@Component
+@Slf4j
+public class OrderSubmitIdempotency {
+
+    /**
+     * 请求头名称
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "order_submit:";
+
+    /**
+     * 下单进行中的占位值
+     */
+    private static final String PROCESSING = "PROCESSING";
+
+    /**
+     * 占位记录的有效期，下单进程意外退出时到期后允许重新提交
+     */
+    private static final long PROCESSING_SECONDS = 60;
+
+    /**
+     * 下单结果保留时间，覆盖客户端的重试窗口
+     */
+    private static final long RESULT_HOURS = 24;
+
+    /**
+     * 重复请求等待第一次下单完成的最长时间
+     */
+    private static final long WAIT_MILLIS = 5000;
+    private static final long WAIT_INTERVAL_MILLIS = 100;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    /**
+     * 按幂等键下单
+     * @param userId 当前用户id
+     * @param idempotencyKey 幂等键，为空时不做幂等控制
+     * @param submit 真正的下单操作，返回时事务已提交
+     * @return 下单结果
+     */
+    public OrderSubmitVO submit(Long userId, String idempotencyKey, Supplier<OrderSubmitVO> submit) {
+        if (idempotencyKey == null || idempotencyKey.trim().isEmpty()) {
+            return submit.get();
+        }
+        String key = KEY_PREFIX + userId + ":" + idempotencyKey;
+
+        while (true) {
+            Boolean first = redisTemplate.opsForValue().setIfAbsent(key, PROCESSING, PROCESSING_SECONDS, TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(first)) {
+                return doSubmit(key, submit);
+            }
+            log.info("重复下单请求，幂等键：{}", key);
+            OrderSubmitVO orderSubmitVO = waitForResult(key);
+            if (orderSubmitVO != null) {
+                return orderSubmitVO;
+            }
+            // 第一次请求下单失败，占位记录已删除，由本次请求重新占位下单
+            log.info("第一次下单失败，重新下单，幂等键：{}", key);
+        }
+    }
+
+    private OrderSubmitVO doSubmit(String key, Supplier<OrderSubmitVO> submit) {
+        OrderSubmitVO orderSubmitVO;
+        try {
+            orderSubmitVO = submit.get();
+        } catch (RuntimeException e) {
+            // 下单失败时删除占位记录，允许客户端用同一个键重试
+            redisTemplate.delete(key);
+            throw e;
+        }
+        redisTemplate.opsForValue().set(key, orderSubmitVO, RESULT_HOURS, TimeUnit.HOURS);
+        return orderSubmitVO;
+    }
+
+    /**
+     * 等待第一次请求的下单结果
+     * @return 下单结果；第一次请求下单失败、占位记录已删除时返回null
+     */
+    private OrderSubmitVO waitForResult(String key) {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (true) {
+            Object value = redisTemplate.opsForValue().get(key);
+            if (value instanceof OrderSubmitVO) {
+                return (OrderSubmitVO) value;
+            }
+            if (value == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new OrderBusinessException(MessageConstant.ORDER_SUBMIT_IN_PROGRESS);
+            }
+            try {
+                Thread.sleep(WAIT_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OrderBusinessException(MessageConstant.ORDER_SUBMIT_IN_PROGRESS);
+            }
+        }
+    }
+}
@@ -3,8 +3,6 @@ package com.sky.interceptor;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.context.BaseContext;
 import com.sky.properties.JwtProperties;
-import com.sky.utils.JwtUtil;
-import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,6 +21,9 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
     @Autowired
     private JwtProperties jwtProperties;
 
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+
     /**
      * 校验jwt
      *
@@ -44,12 +45,11 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
 
         //2、校验令牌
         try {
-            log.info("jwt校验:{}", token);
-            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
-            Long empId = Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString());
+            // 命中已校验令牌缓存时不再重复校验签名；日志中不输出令牌原文
+            Long empId = jwtTokenCache.verify("admin", jwtProperties.getAdminSecretKey(), token, JwtClaimsConstant.EMP_ID);
 
             BaseContext.setCurrentId(empId);
-            log.info("当前员工id：", empId);
+            log.debug("当前员工id：{}", empId);
             //3、通过，放行
             return true;
         } catch (Exception ex) {
@@ -58,4 +58,12 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
             return false;
         }
     }
+
+    /**
+     * 请求结束后清除当前id，避免线程池复用线程时带上一个请求的id
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        BaseContext.removeCurrentId();
+    }
 }
@@ -0,0 +1,79 @@
+package com.sky.interceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 已校验令牌缓存：令牌摘要 -> (id, 过期时间)
+ * 同一会话的后续请求命中缓存时不再做 HMAC 签名校验和 claims 解析；令牌过期后缓存失效，重新校验。
+ * 只缓存校验通过的令牌，缓存中保存令牌的 SHA-256 摘要而不是令牌原文。
+ */
+@Component
+public class JwtTokenCache {
+
+    private final Cache<String, VerifiedToken> cache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 校验令牌并取出id
+     * @param type 令牌类型 admin/user，不同类型使用不同秘钥
+     * @param secretKey jwt秘钥
+     * @param token
+     * @param claimName 保存id的claim
+     * @return id
+     */
+    public Long verify(String type, String secretKey, String token, String claimName) {
+        String key = type + ":" + digest(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified != null && verified.expireMillis > now) {
+            meterRegistry.counter("jwt.token.cache.requests", "type", type, "result", "hit").increment();
+            return verified.id;
+        }
+        meterRegistry.counter("jwt.token.cache.requests", "type", type, "result", "miss").increment();
+
+        // 未命中或已过期，完整校验；校验失败抛出异常
+        Claims claims = JwtUtil.parseJWT(secretKey, token);
+        Long id = Long.valueOf(claims.get(claimName).toString());
+        Date expiration = claims.getExpiration();
+        cache.put(key, new VerifiedToken(id, expiration == null ? Long.MAX_VALUE : expiration.getTime()));
+        return id;
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class VerifiedToken {
+        private final Long id;
+        private final long expireMillis;
+
+        VerifiedToken(Long id, long expireMillis) {
+            this.id = id;
+            this.expireMillis = expireMillis;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sky.mapper;
+
+import com.sky.entity.BusinessDataDaily;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface BusinessDataDailyMapper {
+
+    /**
+     * 批量插入或覆盖每日汇总数据（按日期唯一）
+     * @param dailyList
+     */
+    void upsertBatch(List<BusinessDataDaily> dailyList);
+
+    /**
+     * 查询时间段内的每日汇总数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select * from business_data_daily where date >= #{begin} and date <= #{end} order by date")
+    List<BusinessDataDaily> getByDateRange(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询已汇总的最后日期
+     * @return
+     */
+    @Select("select max(date) from business_data_daily")
+    LocalDate getLastDate();
+
+    /**
+     * 查询已汇总的第一天
+     * @return
+     */
+    @Select("select min(date) from business_data_daily")
+    LocalDate getFirstDate();
+}
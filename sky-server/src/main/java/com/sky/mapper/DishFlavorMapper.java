@@ -30,4 +30,11 @@ public interface DishFlavorMapper {
      */
     @Select("select * from dish_flavor where dish_id=#{dish_id}")
     List<DishFlavor> getByDishId(Long dish_id);
+
+    /**
+     * 根据多个菜品id批量查询口味
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
@@ -2,9 +2,12 @@ package com.sky.mapper;
 
 import com.github.pagehelper.Page;
 import com.sky.dto.GoodsSalesDTO;
+import com.sky.dto.OrderDailyStatDTO;
+import com.sky.dto.OrderStatusCountDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
@@ -42,6 +45,26 @@ public interface OrderMapper {
     @Update("update orders set status = #{orderStatus},pay_status = #{orderPaidStatus} ,checkout_time = #{check_out_time} where id = #{id}")
     void updateStatus(Integer orderStatus, Integer orderPaidStatus, LocalDateTime check_out_time, Long id);
 
+    /**
+     * 支付成功后更新订单状态，仅当订单仍处于status状态时更新，避免覆盖并发的超时取消
+     * @param id
+     * @param status 当前订单状态
+     * @param orderStatus 新的订单状态
+     * @param orderPaidStatus
+     * @param checkoutTime
+     * @return 更新的订单数
+     */
+    @Update("update orders set status = #{orderStatus}, pay_status = #{orderPaidStatus}, checkout_time = #{checkoutTime} " +
+            "where id = #{id} and status = #{status}")
+    int updateStatusByIdAndStatus(Long id, Integer status, Integer orderStatus, Integer orderPaidStatus, LocalDateTime checkoutTime);
+
+    /**
+     * 按状态统计订单数量
+     * @param begin 下单时间下限，为null时统计全部订单
+     * @return
+     */
+    List<OrderStatusCountDTO> countGroupByStatus(@Param("begin") LocalDateTime begin);
+
     @Select("select count(*) from orders where status = #{status}")
     Integer countStatue(Integer status);
 
@@ -54,6 +77,52 @@ public interface OrderMapper {
     @Select("select * from orders where status = #{status} and order_time < #{check_out_time}")
     List<Orders> getByStatusAndOrderTimeLT(Integer status, LocalDateTime check_out_time);
 
+    /**
+     * 锁定指定状态下单时间早于orderTime的订单，每次最多limit条，只查询id和下单时间
+     * 需在事务中调用，锁定的订单在事务结束前不会被支付等操作改变状态
+     * @param status
+     * @param orderTime
+     * @param limit
+     * @return
+     */
+    @Select("select id, order_time from orders where status = #{status} and order_time < #{orderTime} " +
+            "order by id limit #{limit} for update")
+    List<Orders> lockByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime, int limit);
+
+    /**
+     * 批量取消指定状态的订单，订单状态已改变时不更新
+     * @param ids
+     * @param status 当前订单状态
+     * @param orderStatus 新的订单状态，即已取消
+     * @param cancelReason
+     * @param cancelTime
+     * @return 取消的订单数
+     */
+    int cancelByIdsAndStatus(@Param("ids") List<Long> ids, @Param("status") Integer status,
+                             @Param("orderStatus") Integer orderStatus, @Param("cancelReason") String cancelReason,
+                             @Param("cancelTime") LocalDateTime cancelTime);
+
+    /**
+     * 取消指定状态的订单，订单状态已改变时不更新
+     * @param id
+     * @param status 当前订单状态
+     * @param orderStatus 新的订单状态，即已取消
+     * @param cancelReason
+     * @param cancelTime
+     * @return 取消的订单数
+     */
+    @Update("update orders set status = #{orderStatus}, cancel_reason = #{cancelReason}, cancel_time = #{cancelTime} " +
+            "where id = #{id} and status = #{status}")
+    int cancelByIdAndStatus(Long id, Integer status, Integer orderStatus, String cancelReason, LocalDateTime cancelTime);
+
+    /**
+     * 根据状态查询订单id和下单时间
+     * @param status
+     * @return
+     */
+    @Select("select id, order_time from orders where status = #{status}")
+    List<Orders> getByStatus(Integer status);
+
     /**
      *根据条件动态添加数据
      * @param map
@@ -69,4 +138,20 @@ public interface OrderMapper {
     Integer countByMap(Map<String, Object> map);
 
     List<GoodsSalesDTO> getSalesTop10(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 按天分组统计订单总数、有效订单数和营业额，一条SQL返回整个时间段
+     * @param begin
+     * @param end
+     * @param status 有效订单的状态
+     * @return 只包含有订单的日期
+     */
+    List<OrderDailyStatDTO> getDailyStatistics(LocalDateTime begin, LocalDateTime end, Integer status);
+
+    /**
+     * 查询最早的下单时间
+     * @return
+     */
+    @Select("select min(order_time) from orders")
+    LocalDateTime getFirstOrderTime();
 }
@@ -83,5 +83,11 @@ public interface SetmealMapper {
      */
     Integer countByMap(Map map);
 
+    /**
+     * 根据套餐id查询所属分类id
+     * @param ids
+     * @return
+     */
+    List<Long> getCategoryIdsByIds(List<Long> ids);
 
 }
@@ -26,6 +26,24 @@ public interface ShoppingCartMapper {
     @Update("update shopping_cart set number = #{number} where id = #{id}")
     void updateNumber(ShoppingCart ShoppingCart);
 
+    /**
+     * 已有商品数量+1，一条语句原子完成
+     * @param shoppingCart
+     * @return 影响行数，购物车中没有该商品时为0
+     */
+    @Update("update shopping_cart set number = number + 1 " +
+            "where user_id = #{userId} and dish_id <=> #{dishId} and setmeal_id <=> #{setmealId} and dish_flavor <=> #{dishFlavor}")
+    int incrementNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 插入购物车数据，商品已存在时累加数量 (唯一键 user_id + cart_key)
+     * @param shoppingCart
+     */
+    @Insert("insert into shopping_cart (name, image, user_id, dish_id, setmeal_id, dish_flavor, number, amount, create_time) " +
+            " values (#{name},#{image},#{userId},#{dishId},#{setmealId},#{dishFlavor},#{number},#{amount},#{createTime})" +
+            " on duplicate key update number = number + values(number)")
+    void insertOrIncrement(ShoppingCart shoppingCart);
+
 
     /**
      * 插入购物车数据
@@ -43,7 +61,7 @@ public interface ShoppingCartMapper {
     void deleteByUserId(Long userId);
 
     /**
-     * 再来一单
+     * 再来一单，商品已存在时累加数量
      * @param shoppingCartList
      */
     void insertBatch(List<ShoppingCart> shoppingCartList);
@@ -1,9 +1,12 @@
 package com.sky.mapper;
 
+import com.sky.dto.UserDailyStatDTO;
 import com.sky.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -32,4 +35,19 @@ public interface UserMapper {
      * @return
      */
     Integer countByMap(Map<String, Object> map);
+
+    /**
+     * 按天分组统计新增用户数，一条SQL返回整个时间段
+     * @param begin
+     * @param end
+     * @return 只包含有新增用户的日期
+     */
+    List<UserDailyStatDTO> getDailyNewUsers(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 查询最早的注册时间
+     * @return
+     */
+    @Select("select min(create_time) from user")
+    LocalDateTime getFirstCreateTime();
 }
@@ -0,0 +1,22 @@
+package com.sky.service;
+
+import com.sky.entity.BusinessDataDaily;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BusinessDataDailyService {
+
+    /**
+     * 查询时间段内每一天的营业数据，已汇总的日期读汇总表，今天及未汇总的日期实时统计
+     * @param begin
+     * @param end
+     * @return 按日期升序，每天一条
+     */
+    List<BusinessDataDaily> listByDate(LocalDate begin, LocalDate end);
+
+    /**
+     * 增量汇总截至昨天的每日营业数据
+     */
+    void rollup();
+}
@@ -0,0 +1,214 @@
+package com.sky.service.impl;
+
+import com.sky.dto.OrderDailyStatDTO;
+import com.sky.dto.UserDailyStatDTO;
+import com.sky.entity.BusinessDataDaily;
+import com.sky.entity.Orders;
+import com.sky.mapper.BusinessDataDailyMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessDataDailyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class BusinessDataDailyServiceImpl implements BusinessDataDailyService {
+
+    /**
+     * 每次汇总时重新计算最近几天，覆盖跨天完成（如凌晨自动完成派送）的订单
+     */
+    private static final int ROLLUP_REFRESH_DAYS = 2;
+
+    /**
+     * 汇总时每次聚合查询的天数
+     */
+    private static final int ROLLUP_CHUNK_DAYS = 92;
+
+    @Autowired
+    private BusinessDataDailyMapper businessDataDailyMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    /**
+     * 查询时间段内每一天的营业数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    public List<BusinessDataDaily> listByDate(LocalDate begin, LocalDate end) {
+        Map<LocalDate, BusinessDataDaily> dailyMap = new HashMap<>();
+
+        // 1. 已结束的日期优先读汇总表
+        LocalDate closedEnd = LocalDate.now().minusDays(1);
+        if (closedEnd.isAfter(end)) {
+            closedEnd = end;
+        }
+        if (!begin.isAfter(closedEnd)) {
+            for (BusinessDataDaily daily : businessDataDailyMapper.getByDateRange(begin, closedEnd)) {
+                dailyMap.put(daily.getDate(), daily);
+            }
+        }
+
+        // 2. 汇总任务从最早的订单或注册日期开始汇总，汇总表第一天之前及今天之后没有营业数据，直接补0
+        LocalDate firstRollupDate = businessDataDailyMapper.getFirstDate();
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        // 3. 其余汇总表中没有的日期（今天、任务尚未覆盖的日期）按连续区间分别实时统计
+        LocalDate missingBegin = null;
+        for (LocalDate date = begin; !date.isAfter(end.plusDays(1)); date = date.plusDays(1)) {
+            boolean missing = !date.isAfter(end) && !dailyMap.containsKey(date);
+            if (missing && (date.isAfter(today) || firstRollupDate != null && date.isBefore(firstRollupDate))) {
+                dailyMap.put(date, toDaily(date, null, 0, now));
+                missing = false;
+            }
+            if (missing && missingBegin == null) {
+                missingBegin = date;
+            } else if (!missing && missingBegin != null) {
+                for (BusinessDataDaily daily : computeByChunk(missingBegin, date.minusDays(1))) {
+                    dailyMap.putIfAbsent(daily.getDate(), daily);
+                }
+                missingBegin = null;
+            }
+        }
+
+        List<BusinessDataDaily> dailyList = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            dailyList.add(dailyMap.get(date));
+        }
+        return dailyList;
+    }
+
+    /**
+     * 增量汇总截至昨天的每日营业数据
+     */
+    public void rollup() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+
+        // 从上次汇总的最后几天开始；第一次汇总从最早的订单或用户开始
+        LocalDate begin;
+        LocalDate lastDate = businessDataDailyMapper.getLastDate();
+        if (lastDate != null) {
+            begin = lastDate.minusDays(ROLLUP_REFRESH_DAYS - 1);
+        } else {
+            begin = getFirstActivityDate();
+            if (begin == null) {
+                return;
+            }
+        }
+
+        int count = 0;
+        while (!begin.isAfter(yesterday)) {
+            LocalDate end = chunkEnd(begin, yesterday);
+            List<BusinessDataDaily> dailyList = compute(begin, end);
+            businessDataDailyMapper.upsertBatch(dailyList);
+            count += dailyList.size();
+            begin = end.plusDays(1);
+        }
+        log.info("每日营业数据汇总完成，共{}天", count);
+    }
+
+    /**
+     * 按 ROLLUP_CHUNK_DAYS 天分段实时统计，避免长时间段一次聚合扫描过多数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    private List<BusinessDataDaily> computeByChunk(LocalDate begin, LocalDate end) {
+        List<BusinessDataDaily> dailyList = new ArrayList<>();
+        while (!begin.isAfter(end)) {
+            LocalDate chunkEnd = chunkEnd(begin, end);
+            dailyList.addAll(compute(begin, chunkEnd));
+            begin = chunkEnd.plusDays(1);
+        }
+        return dailyList;
+    }
+
+    private LocalDate chunkEnd(LocalDate begin, LocalDate end) {
+        LocalDate chunkEnd = begin.plusDays(ROLLUP_CHUNK_DAYS - 1);
+        return chunkEnd.isAfter(end) ? end : chunkEnd;
+    }
+
+    /**
+     * 实时统计时间段内每一天的营业数据，订单和用户各一条聚合SQL
+     * @param begin
+     * @param end
+     * @return 按日期升序，没有数据的日期补0
+     */
+    private List<BusinessDataDaily> compute(LocalDate begin, LocalDate end) {
+        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
+        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
+
+        Map<LocalDate, OrderDailyStatDTO> orderMap = orderMapper.getDailyStatistics(beginTime, endTime, Orders.COMPLETED)
+                .stream()
+                .collect(Collectors.toMap(OrderDailyStatDTO::getDate, d -> d));
+        Map<LocalDate, Integer> newUserMap = userMapper.getDailyNewUsers(beginTime, endTime)
+                .stream()
+                .collect(Collectors.toMap(UserDailyStatDTO::getDate, UserDailyStatDTO::getNewUsers));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BusinessDataDaily> dailyList = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            dailyList.add(toDaily(date, orderMap.get(date), newUserMap.getOrDefault(date, 0), now));
+        }
+        return dailyList;
+    }
+
+    /**
+     * 构造一天的营业数据
+     * @param date
+     * @param order 当天的订单统计，没有订单时为null
+     * @param newUsers 当天新增用户数
+     * @param now
+     * @return
+     */
+    private BusinessDataDaily toDaily(LocalDate date, OrderDailyStatDTO order, Integer newUsers, LocalDateTime now) {
+        Double turnover = order == null ? 0.0 : order.getTurnover();
+        Integer validOrderCount = order == null ? 0 : order.getValidOrderCount();
+        Integer totalOrderCount = order == null ? 0 : order.getOrderCount();
+
+        return BusinessDataDaily.builder()
+                .date(date)
+                .turnover(turnover)
+                .validOrderCount(validOrderCount)
+                .totalOrderCount(totalOrderCount)
+                .newUsers(newUsers)
+                .unitPrice(validOrderCount == 0 ? 0.0 : turnover / validOrderCount)
+                .updateTime(now)
+                .build();
+    }
+
+    /**
+     * 最早的订单或注册日期
+     * @return
+     */
+    private LocalDate getFirstActivityDate() {
+        LocalDateTime firstOrderTime = orderMapper.getFirstOrderTime();
+        LocalDateTime firstCreateTime = userMapper.getFirstCreateTime();
+        if (firstOrderTime == null && firstCreateTime == null) {
+            return null;
+        }
+        if (firstOrderTime == null) {
+            return firstCreateTime.toLocalDate();
+        }
+        if (firstCreateTime == null || firstOrderTime.isBefore(firstCreateTime)) {
+            return firstOrderTime.toLocalDate();
+        }
+        return firstCreateTime.toLocalDate();
+    }
+}
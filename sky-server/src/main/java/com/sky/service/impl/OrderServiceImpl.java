@@ -4,8 +4,11 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cart.ShoppingCartStore;
 import com.sky.constant.MessageConstant;
+import com.sky.constant.WebSocketTopicConstant;
 import com.sky.context.BaseContext;
+import com.sky.counter.OrderStatusCounter;
 import com.sky.dto.*;
 import com.sky.entity.*;
 import com.sky.exception.AddressBookBusinessException;
@@ -14,12 +17,15 @@ import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
 import com.sky.result.PageResult;
 import com.sky.service.OrderService;
+import com.sky.task.OrderTimeoutQueue;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
-import com.sky.websocket.WebSocketServer;
+import com.sky.websocket.OrderEventBus;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -34,6 +40,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class OrderServiceImpl implements OrderService {
 
     @Autowired
@@ -46,12 +53,20 @@ public class OrderServiceImpl implements OrderService {
     private AddressBookMapper addressBookMapper;
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartStore shoppingCartStore;
 
-    private Orders orders;
 
     @Autowired
-    private WebSocketServer webSocketServer;
+    private OrderEventBus orderEventBus;
+
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    @Autowired
+    private SnowflakeIdGenerator orderNumberGenerator;
     /**
      * 用户下单
      * @param ordersSubmitDTO
@@ -66,10 +81,7 @@ public class OrderServiceImpl implements OrderService {
             throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
         }
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = ShoppingCart.builder()
-                .userId(userId)
-                .build();
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        List<ShoppingCart> shoppingCartList = shoppingCartStore.list(userId);
         if(shoppingCartList==null || shoppingCartList.size()==0){
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
@@ -82,8 +94,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setOrderTime(LocalDateTime.now());
         orders.setPayMethod(Orders.UN_PAID);
         orders.setStatus(Orders.PENDING_PAYMENT);
-        orders.setNumber(String.valueOf(System.currentTimeMillis()));
-        this.orders = orders;
+        orders.setNumber(String.valueOf(orderNumberGenerator.nextId()));
 
         orders.setAddress(addressBook.getProvinceName()
                 +addressBook.getCityName()
@@ -103,6 +114,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setAmount(totalAmount);
 
         orderMapper.insert(orders);
+        orderStatusCounter.created(orders.getOrderTime());
 
         // --- C. 向订单明细表插入多条数据 (order_detail) ---
 
@@ -116,8 +128,10 @@ public class OrderServiceImpl implements OrderService {
         }
         // 7. 批量插入订单明细 (性能优化：不要在循环里调 insert)
         orderDetailMapper.insertBatch(orderDetailList);
+        // 加入支付超时队列，超时未支付自动取消
+        orderTimeoutQueue.add(orders.getId(), orders.getOrderTime());
         // 8. 清空购物车数据
-        shoppingCartMapper.deleteByUserId(userId);
+        shoppingCartStore.clean(userId);
 
         // 9. 封装返回结果VO
         return OrderSubmitVO.builder()
@@ -142,7 +156,15 @@ public class OrderServiceImpl implements OrderService {
     public OrderPaymentVO payment(OrdersPaymentDTO ordersPaymentDTO) throws Exception {
         // 当前登录用户id
         Long userId = BaseContext.getCurrentId();
-        User user = userMapper.getById(userId);
+
+        // 根据订单号查询当前用户的订单，每次请求单独查询，不依赖下单时保存的状态
+        Orders ordersDB = orderMapper.getByNumberAndUserId(ordersPaymentDTO.getOrderNumber(), userId);
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        if (!Orders.PENDING_PAYMENT.equals(ordersDB.getStatus())) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
 
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("code","ORDERPAID");
@@ -151,17 +173,23 @@ public class OrderServiceImpl implements OrderService {
         Integer OrderPaidStatus = Orders.PAID;//支付状态，已支付
         Integer OrderStatus = Orders.TO_BE_CONFIRMED;  //订单状态，待接单
         LocalDateTime check_out_time = LocalDateTime.now();//更新支付时间
-        orderMapper.updateStatus(OrderStatus, OrderPaidStatus, check_out_time, this.orders.getId());
+        // 订单可能已被超时任务取消
+        if (orderMapper.updateStatusByIdAndStatus(ordersDB.getId(), Orders.PENDING_PAYMENT,
+                OrderStatus, OrderPaidStatus, check_out_time) == 0) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        orderTimeoutQueue.remove(ordersDB.getId());
+        orderStatusCounter.transition(ordersDB.getOrderTime(), Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED);
 
         // 通过websocket向浏览器推送消息
         Map map  = new HashMap();
         map.put("type",1);
-        map.put("orderId",this.orders.getId());
-        map.put("content","订单号："+this.orders.getNumber());
+        map.put("orderId",ordersDB.getId());
+        map.put("content","订单号："+ordersDB.getNumber());
 
         String jsonString = JSON.toJSONString(map);
 
-        webSocketServer.sendToAllClient(jsonString);
+        orderEventBus.publish(WebSocketTopicConstant.ORDER_PAID, jsonString);
 
         return vo;
     }
@@ -177,16 +205,19 @@ public class OrderServiceImpl implements OrderService {
 
         // 根据订单号查询当前用户的订单
         Orders ordersDB = orderMapper.getByNumberAndUserId(outTradeNo, userId);
+        if (ordersDB == null) {
+            log.warn("支付成功的订单不存在，订单号：{}", outTradeNo);
+            return;
+        }
 
-        // 根据订单id更新订单的状态、支付方式、支付状态、结账时间
-        Orders orders = Orders.builder()
-                .id(ordersDB.getId())
-                .status(Orders.TO_BE_CONFIRMED)
-                .payStatus(Orders.PAID)
-                .checkoutTime(LocalDateTime.now())
-                .build();
-
-        orderMapper.update(orders);
+        // 仅当订单仍待付款时更新状态、支付状态、结账时间；重复通知或订单已被超时取消时不覆盖
+        if (orderMapper.updateStatusByIdAndStatus(ordersDB.getId(), Orders.PENDING_PAYMENT,
+                Orders.TO_BE_CONFIRMED, Orders.PAID, LocalDateTime.now()) == 0) {
+            log.warn("订单{}已不是待付款状态，忽略支付成功通知，当前状态：{}", outTradeNo, ordersDB.getStatus());
+            return;
+        }
+        orderTimeoutQueue.remove(ordersDB.getId());
+        orderStatusCounter.transition(ordersDB.getOrderTime(), Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED);
 
     }
 
@@ -268,10 +299,12 @@ public class OrderServiceImpl implements OrderService {
         }
 
         //更新订单状态、取消原因、取消时间并更新到数据库
+        Integer status = order.getStatus();
         order.setStatus(Orders.CANCELLED);
         order.setCancelReason("用户取消");
         order.setCancelTime(LocalDateTime.now());
         orderMapper.update(order);
+        orderStatusCounter.transition(order.getOrderTime(), status, Orders.CANCELLED);
     }
 
     /**
@@ -297,7 +330,7 @@ public class OrderServiceImpl implements OrderService {
         }).collect(Collectors.toList());
 
         //将购物车对象批量添加到数据库
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        shoppingCartStore.insertBatch(shoppingCartList);
     }
 
     @Override
@@ -316,14 +349,18 @@ public class OrderServiceImpl implements OrderService {
 
         //查询订单明细，并封装入OrderVO进行响应
         if (page != null && !page.isEmpty()) {
+            //一次性查询本页所有订单的明细，再按订单id分组，避免每个订单查一次
+            List<Long> orderIds = page.stream().map(Orders::getId).collect(Collectors.toList());
+            Map<Long, List<OrderDetail>> orderDetailMap = orderDetailMapper.getByOrderIds(orderIds).stream()
+                    .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+
             for (Orders order : page) {
                 //封装入OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(order, orderVO);
 
-                //查询订单明细
-                Long orderId = order.getId(); //订单id
-                List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orderId);
+                //取出该订单的明细
+                List<OrderDetail> orderDetailList = orderDetailMap.getOrDefault(order.getId(), new ArrayList<>());
 
                 //如果是管理端的查询请求，就拼接菜品信息字符串(格式：菜品名字*菜品数量; )
                 if (isAdmin) {
@@ -344,10 +381,12 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public OrderStatisticsVO statistics() {
-        //根据状态，分别查询出待接单、待派送、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countStatue(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatue(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatue(Orders.DELIVERY_IN_PROGRESS);
+        //根据状态，分别查询出待接单、待派送、派送中的订单数量 (读取计数器，不扫描订单表)
+        List<Integer> counts = orderStatusCounter.count(
+                Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS);
+        Integer toBeConfirmed = counts.get(0);
+        Integer confirmed = counts.get(1);
+        Integer deliveryInProgress = counts.get(2);
 
         //将查询出的数据封装到OrderStaticticsVO中并返回
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
@@ -359,11 +398,20 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
+        //根据id查询订单
+        Orders ordersDB = orderMapper.getById(ordersConfirmDTO.getId());
+
+        //只有订单存在且状态为待接单时才可以接单
+        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+
         Orders orders = Orders.builder()
                 .id(ordersConfirmDTO.getId())
                 .status(Orders.CONFIRMED)
                 .build();
         orderMapper.update(orders);
+        orderStatusCounter.transition(ordersDB.getOrderTime(), Orders.TO_BE_CONFIRMED, Orders.CONFIRMED);
     }
 
     @Override
@@ -388,6 +436,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setRejectionReason(ordersRejectionDTO.getRejectionReason());
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+        orderStatusCounter.transition(orders.getOrderTime(), Orders.TO_BE_CONFIRMED, Orders.CANCELLED);
     }
 
     @Override
@@ -409,10 +458,12 @@ public class OrderServiceImpl implements OrderService {
         }
 
         //根据订单id更新订单状态、取消原因、取消时间
+        Integer status = orders.getStatus();
         orders.setStatus(Orders.CANCELLED);
         orders.setCancelReason(ordersCancelDTO.getCancelReason());
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+        orderStatusCounter.transition(orders.getOrderTime(), status, Orders.CANCELLED);
     }
 
     @Override
@@ -428,6 +479,7 @@ public class OrderServiceImpl implements OrderService {
         //更新订单状态
         orders.setStatus(Orders.DELIVERY_IN_PROGRESS);
         orderMapper.update(orders);
+        orderStatusCounter.transition(orders.getOrderTime(), Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS);
     }
 
     @Override
@@ -444,6 +496,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setStatus(Orders.COMPLETED);
         orders.setDeliveryTime(LocalDateTime.now());
         orderMapper.update(orders);
+        orderStatusCounter.transition(orders.getOrderTime(), Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED);
     }
 
     /**
@@ -464,9 +517,7 @@ public class OrderServiceImpl implements OrderService {
         map.put("orderId", id);
         map.put("content","订单号："+orders.getNumber());
 
-        webSocketServer.sendToAllClient(
-                JSON.toJSONString(map)
-        );
+        orderEventBus.publish(WebSocketTopicConstant.ORDER_REMINDER, JSON.toJSONString(map));
 
     }
 
@@ -1,14 +1,18 @@
 package com.sky.service.impl;
 
 import com.sky.dto.GoodsSalesDTO;
-import com.sky.entity.Orders;
+import com.sky.entity.BusinessDataDaily;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessDataDailyService;
 import com.sky.service.ReportService;
-import com.sky.service.WorkspaceService;
 import com.sky.vo.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -39,7 +43,23 @@ public class ReportServiceImpl implements ReportService {
     private UserMapper userMapper;
 
     @Autowired
-    private WorkspaceService workspaceService;
+    private BusinessDataDailyService businessDataDailyService;
+
+    /**
+     * 导出报表明细行在模板中的起始行 (Row 7) 和最后一列 (Cell 6)
+     */
+    private static final int EXPORT_DETAIL_FIRST_ROW = 7;
+    private static final int EXPORT_DETAIL_LAST_CELL = 6;
+
+    /**
+     * SXSSF 内存中保留的行数，超出的行会刷到临时文件
+     */
+    private static final int EXPORT_ROW_ACCESS_WINDOW = 100;
+
+    /**
+     * 导出时每次读取的天数
+     */
+    private static final int EXPORT_CHUNK_DAYS = 92;
 
     /**
      * 营业额统计
@@ -51,20 +71,10 @@ public class ReportServiceImpl implements ReportService {
         // 提取时间列表
         List<LocalDate> dateList = getLocalDates(begin, end);
 
-        List<Double> turnoverList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            // 营业额是状态为已完成状态的订单合计
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Map<String, Object> map = new HashMap<>();
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-            map.put("status", Orders.COMPLETED); // 状态为5
-            Double turnover = orderMapper.sumByMap(map);
-            // select sum(amount) from orders where order_time > ? and order_time < ? and status = 5
-            turnoverList.add(turnover);
-        }
+        // 按天的营业数据（已结束的日期读汇总表，今天实时统计），营业额是状态为已完成状态的订单合计
+        List<Double> turnoverList = businessDataDailyService.listByDate(begin, end).stream()
+                .map(BusinessDataDaily::getTurnover)
+                .collect(Collectors.toList());
 
         return TurnoverReportVO
                 .builder()
@@ -87,24 +97,18 @@ public class ReportServiceImpl implements ReportService {
         List<Integer> newUserList = new ArrayList<>();
         List<Integer> totalUserList = new ArrayList<>();
 
-        // 3. 遍历日期，根据
-        // select count(id) from user where create_time< ?  and create_time > ?
-        for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN); // 当天 00:00:00
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);   // 当天 23:59:59
-
-            // --- 查询总用户数 (select count(id) from user where create_time < endTime) ---
-            Map<String, Object> map = new HashMap<>();
-            map.put("end", endTime);
-            // 只要是在今天结束之前注册的，都算进总数
-            Integer totalUser = userMapper.countByMap(map);
-            totalUserList.add(totalUser);
+        // 开始日期之前的用户总数，作为累加的基数
+        // select count(id) from user where create_time <= 前一天 23:59:59
+        Map<String, Object> map = new HashMap<>();
+        map.put("end", LocalDateTime.of(begin.minusDays(1), LocalTime.MAX));
+        Integer totalUser = userMapper.countByMap(map);
 
-            // --- 查询新增用户数 (select count(id) from user where create_time > beginTime and create_time < endTime) ---
-            map.put("begin", beginTime);
-            // 在今天 0点 到 23点59分 之间注册的，算新增
-            Integer newUser = userMapper.countByMap(map);
+        // 3. 遍历每日新增用户数，总用户数逐日累加
+        for (BusinessDataDaily daily : businessDataDailyService.listByDate(begin, end)) {
+            Integer newUser = daily.getNewUsers();
+            totalUser += newUser;
             newUserList.add(newUser);
+            totalUserList.add(totalUser);
         }
 
         // 4. 封装 VO 结果并返回
@@ -130,26 +134,10 @@ public class ReportServiceImpl implements ReportService {
         List<Integer> orderCountList = new ArrayList<>();
         List<Integer> validOrderCountList = new ArrayList<>();
 
-        for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN); // 当天 00:00:00
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);   // 当天 23:59:59
-
-            // 准备查询条件 Map
-            Map<String, Object> map = new HashMap<>();
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-
-            // --- 查询当天的【订单总数】 ---
-            // SQL: select count(id) from orders where order_time > ? and order_time < ?
-            Integer orderCount = orderMapper.countByMap(map);
-            orderCountList.add(orderCount);
-
-            // --- 查询当天的【有效订单数】 ---
-            // 有效订单 = 状态为“已完成”(Orders.COMPLETED = 5)
-            // SQL: select count(id) from orders where order_time > ? and order_time < ? and status = 5
-            map.put("status", Orders.COMPLETED);
-            Integer validOrderCount = orderMapper.countByMap(map);
-            validOrderCountList.add(validOrderCount);
+        // 按天的营业数据，有效订单 = 状态为“已完成”(Orders.COMPLETED = 5)
+        for (BusinessDataDaily daily : businessDataDailyService.listByDate(begin, end)) {
+            orderCountList.add(daily.getTotalOrderCount());
+            validOrderCountList.add(daily.getValidOrderCount());
         }
 
         // 4. 计算时间区间内的汇总数据 (VO 需要的额外字段)
@@ -202,79 +190,130 @@ public class ReportServiceImpl implements ReportService {
     }
 
     /**
-     * 导出运营数据报表
+     * 导出运营数据报表（默认最近30天）
      */
     @Override
     public void exportBusinessData(HttpServletResponse response) {
-        // 1. 查询数据库，获取最近30天的运营数据
-        LocalDate dateBegin = LocalDate.now().minusDays(30);
-        LocalDate dateEnd = LocalDate.now().minusDays(1);
-
-        // 查询概览数据（这是Service里封装好的方法，查询某段时间内的 营业额、订单完成率等）
-        BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(dateBegin, LocalTime.MIN), LocalDateTime.of(dateEnd, LocalTime.MAX));
+        exportBusinessData(LocalDate.now().minusDays(30), LocalDate.now().minusDays(1), response);
+    }
 
-        // 2. 通过输入流读取 Excel 模板文件
+    /**
+     * 导出指定时间段的运营数据报表
+     * 表头沿用模板，明细行通过 SXSSF 流式写出，按时间块读取每日汇总，内存占用与时间跨度无关
+     * @param begin
+     * @param end
+     * @param response
+     */
+    @Override
+    public void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response) {
+        // 1. 通过输入流读取 Excel 模板文件
         // 路径基于 classpath，对应 src/main/resources/template/运营数据报表模板.xlsx
         InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
 
+        SXSSFWorkbook excel = null;
         try {
-            // 3. 基于模板文件创建一个新的 Excel 对象 (Workbook)
-            XSSFWorkbook excel = new XSSFWorkbook(in);
+            XSSFWorkbook template = new XSSFWorkbook(in);
+            XSSFSheet templateSheet = template.getSheet("Sheet1");
+
+            // 2. 记录模板明细行的样式和行高，然后删除模板里的明细行，后续行全部由 SXSSF 流式创建
+            XSSFRow styleRow = templateSheet.getRow(EXPORT_DETAIL_FIRST_ROW);
+            short rowHeight = styleRow.getHeight();
+            CellStyle[] cellStyles = new CellStyle[EXPORT_DETAIL_LAST_CELL + 1];
+            for (int i = 1; i <= EXPORT_DETAIL_LAST_CELL; i++) {
+                cellStyles[i] = styleRow.getCell(i).getCellStyle();
+            }
+            for (int i = templateSheet.getLastRowNum(); i >= EXPORT_DETAIL_FIRST_ROW; i--) {
+                XSSFRow row = templateSheet.getRow(i);
+                if (row != null) {
+                    templateSheet.removeRow(row);
+                }
+            }
 
-            // 4. 获取第一个页签 (Sheet1)
-            XSSFSheet sheet = excel.getSheet("Sheet1");
+            // 3. 基于模板创建流式 Excel 对象，内存中只保留窗口内的行
+            excel = new SXSSFWorkbook(template, EXPORT_ROW_ACCESS_WINDOW);
+            SXSSFSheet sheet = excel.getSheet("Sheet1");
 
-            // ------------------ 填充概览数据 (表格上方) ------------------
+            // ------------------ 填充明细数据 (表格下方列表) ------------------
 
-            // 填充时间范围：第2行，第2列 (索引从0开始，Row 1, Cell 1)
-            sheet.getRow(1).getCell(1).setCellValue("时间：" + dateBegin + "至" + dateEnd);
+            // 4. 按时间块查询聚合数据，逐天写出，同时累计概览数据
+            double totalTurnover = 0.0;
+            int totalValidOrderCount = 0;
+            int totalOrderCount = 0;
+            int totalNewUsers = 0;
+
+            int rowIndex = EXPORT_DETAIL_FIRST_ROW;
+            LocalDate chunkBegin = begin;
+            while (!chunkBegin.isAfter(end)) {
+                LocalDate chunkEnd = chunkBegin.plusDays(EXPORT_CHUNK_DAYS - 1);
+                if (chunkEnd.isAfter(end)) {
+                    chunkEnd = end;
+                }
 
-            // 获得第4行 (Row 3)
-            XSSFRow row = sheet.getRow(3);
-            row.getCell(2).setCellValue(businessData.getTurnover());       // 第3列：营业额
-            row.getCell(4).setCellValue(businessData.getOrderCompletionRate()); // 第5列：订单完成率
-            row.getCell(6).setCellValue(businessData.getNewUsers());       // 第7列：新增用户数
+                for (BusinessDataDaily daily : businessDataDailyService.listByDate(chunkBegin, chunkEnd)) {
+                    double turnover = daily.getTurnover();
+                    int validOrderCount = daily.getValidOrderCount();
+                    int orderCount = daily.getTotalOrderCount();
+                    int newUsers = daily.getNewUsers();
+
+                    totalTurnover += turnover;
+                    totalValidOrderCount += validOrderCount;
+                    totalOrderCount += orderCount;
+                    totalNewUsers += newUsers;
+
+                    Row row = sheet.createRow(rowIndex++);
+                    row.setHeight(rowHeight);
+                    for (int i = 1; i <= EXPORT_DETAIL_LAST_CELL; i++) {
+                        row.createCell(i).setCellStyle(cellStyles[i]);
+                    }
+                    row.getCell(1).setCellValue(daily.getDate().toString());            // 日期
+                    row.getCell(2).setCellValue(turnover);                              // 营业额
+                    row.getCell(3).setCellValue(validOrderCount);                       // 有效订单
+                    row.getCell(4).setCellValue(orderCount == 0 ? 0.0
+                            : (double) validOrderCount / orderCount);                   // 完成率
+                    row.getCell(5).setCellValue(daily.getUnitPrice());                  // 平均客单价
+                    row.getCell(6).setCellValue(newUsers);                              // 新增用户
+                }
 
-            // 获得第5行 (Row 4)
-            row = sheet.getRow(4);
-            row.getCell(2).setCellValue(businessData.getValidOrderCount()); // 第3列：有效订单
-            row.getCell(4).setCellValue(businessData.getUnitPrice());       // 第5列：平均客单价
+                chunkBegin = chunkEnd.plusDays(1);
+            }
 
-            // ------------------ 填充明细数据 (表格下方列表) ------------------
+            // ------------------ 填充概览数据 (表格上方，模板中的行) ------------------
 
-            // 5. 循环查询每一天的数据，并填入下方表格
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = dateBegin.plusDays(i);
-                // 查询某一天的详细数据
-                BusinessDataVO data = workspaceService.getBusinessData(LocalDateTime.of(date, LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-
-                // 从第8行开始往下填 (Row 7)
-                row = sheet.getRow(7 + i);
-                if (row == null) {
-                    // 如果模板里行不够，就创建一个新行
-                    row = sheet.createRow(7 + i);
-                }
+            // 填充时间范围：第2行，第2列 (索引从0开始，Row 1, Cell 1)
+            templateSheet.getRow(1).getCell(1).setCellValue("时间：" + begin + "至" + end);
 
-                row.getCell(1).setCellValue(date.toString());            // 日期
-                row.getCell(2).setCellValue(data.getTurnover());         // 营业额
-                row.getCell(3).setCellValue(data.getValidOrderCount());  // 有效订单
-                row.getCell(4).setCellValue(data.getOrderCompletionRate()); // 完成率
-                row.getCell(5).setCellValue(data.getUnitPrice());        // 平均客单价
-                row.getCell(6).setCellValue(data.getNewUsers());         // 新增用户
-            }
+            // 获得第4行 (Row 3)
+            XSSFRow row = templateSheet.getRow(3);
+            row.getCell(2).setCellValue(totalTurnover);       // 第3列：营业额
+            row.getCell(4).setCellValue(totalOrderCount == 0 ? 0.0
+                    : (double) totalValidOrderCount / totalOrderCount); // 第5列：订单完成率
+            row.getCell(6).setCellValue(totalNewUsers);       // 第7列：新增用户数
 
-            // ------------------ 6. 输出文件 ------------------
+            // 获得第5行 (Row 4)
+            row = templateSheet.getRow(4);
+            row.getCell(2).setCellValue(totalValidOrderCount); // 第3列：有效订单
+            row.getCell(4).setCellValue(totalValidOrderCount == 0 ? 0.0
+                    : totalTurnover / totalValidOrderCount);   // 第5列：平均客单价
+
+            // ------------------ 5. 输出文件 ------------------
 
             // 通过输出流将 Excel 文件下载到客户端浏览器
             ServletOutputStream out = response.getOutputStream();
             excel.write(out);
-
-            // 关闭资源
             out.close();
-            excel.close();
 
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            // 删除 SXSSF 写出时产生的临时文件并关闭资源
+            if (excel != null) {
+                excel.dispose();
+                try {
+                    excel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
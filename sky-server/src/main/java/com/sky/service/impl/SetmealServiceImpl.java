@@ -185,4 +185,13 @@ public class SetmealServiceImpl implements SetmealService {
         return setmealMapper.getDishItemBySetmealId(id);
     }
 
+    /**
+     * 根据套餐id查询所属分类id
+     * @param ids
+     * @return
+     */
+    public List<Long> getCategoryIdsByIds(List<Long> ids) {
+        return setmealMapper.getCategoryIdsByIds(ids);
+    }
+
 }
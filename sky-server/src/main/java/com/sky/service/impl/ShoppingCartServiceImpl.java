@@ -1,5 +1,6 @@
 package com.sky.service.impl;
 
+import com.sky.cart.ShoppingCartStore;
 import com.sky.context.BaseContext;
 import com.sky.dto.ShoppingCartDTO;
 import com.sky.entity.Dish;
@@ -7,7 +8,6 @@ import com.sky.entity.Setmeal;
 import com.sky.entity.ShoppingCart;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
 import com.sky.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -22,7 +22,7 @@ import java.util.List;
 public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartStore shoppingCartStore;
 
     @Autowired
     private DishMapper dishMapper;
@@ -43,14 +43,9 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         Long userId = BaseContext.getCurrentId();
         shoppingCart.setUserId(userId);
 
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-
-        // 1.1 存在时，update，数量+1
-        if (list != null && list.size() > 0) {
-            ShoppingCart cart = list.get(0);
-            cart.setNumber(cart.getNumber() + 1);
-            shoppingCartMapper.updateNumber(cart);
-        } else{
+        // 1.1 存在时，数量+1
+        if (!shoppingCartStore.increment(shoppingCart)) {
+            // 1.2 不存在，插入新的数据
             Long dishId = shoppingCartDTO.getDishId();
             if(dishId != null){
                 // 加菜品
@@ -71,12 +66,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             shoppingCart.setCreateTime(LocalDateTime.now());
 
             // 数据插入
-            shoppingCartMapper.insert(shoppingCart);
+            shoppingCartStore.insert(shoppingCart);
         }
-
-        // 1.2 不存在，插入新的数据
-
-
     }
 
     /**
@@ -86,11 +77,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     @Override
     public List<ShoppingCart> showShoppingCart() {
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = ShoppingCart.builder()
-                .userId(userId)
-                .build();
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-        return list;
+        return shoppingCartStore.list(userId);
     }
 
     /**
@@ -99,9 +86,6 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     @Override
     public void cleanShoppingCart() {
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = ShoppingCart.builder()
-                .userId(userId)
-                .build();
-        shoppingCartMapper.deleteByUserId(userId);
+        shoppingCartStore.clean(userId);
     }
 }
@@ -1,11 +1,14 @@
 package com.sky.service.impl;
 
 import com.sky.constant.StatusConstant;
+import com.sky.counter.OrderStatusCounter;
+import com.sky.entity.BusinessDataDaily;
 import com.sky.entity.Orders;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessDataDailyService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -17,6 +20,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -31,6 +35,10 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
 
     /**
      * 根据时间段统计营业数据
@@ -47,6 +55,11 @@ public class WorkspaceServiceImpl implements WorkspaceService {
          * 新增用户：当日新增用户的数量
          */
 
+        // 整天的时间段直接按天汇总：已结束的日期读汇总表，今天实时统计
+        if (begin.toLocalTime().equals(LocalTime.MIN) && end.toLocalTime().equals(LocalTime.MAX)) {
+            return sumBusinessData(businessDataDailyService.listByDate(begin.toLocalDate(), end.toLocalDate()));
+        }
+
         Map map = new HashMap();
         map.put("begin",begin);
         map.put("end",end);
@@ -86,39 +99,56 @@ public class WorkspaceServiceImpl implements WorkspaceService {
 
 
     /**
-     * 查询订单管理数据
-     *
+     * 将每日营业数据汇总为时间段的营业数据
+     * @param dailyList
      * @return
      */
-    public OrderOverViewVO getOrderOverView() {
-        Map map = new HashMap();
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        map.put("status", Orders.TO_BE_CONFIRMED);
-
-        //待接单
-        Integer waitingOrders = orderMapper.countByMap(map);
+    private BusinessDataVO sumBusinessData(List<BusinessDataDaily> dailyList) {
+        double turnover = 0.0;
+        int validOrderCount = 0;
+        int totalOrderCount = 0;
+        int newUsers = 0;
+        for (BusinessDataDaily daily : dailyList) {
+            turnover += daily.getTurnover();
+            validOrderCount += daily.getValidOrderCount();
+            totalOrderCount += daily.getTotalOrderCount();
+            newUsers += daily.getNewUsers();
+        }
 
-        //待派送
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
+        Double unitPrice = 0.0;
+        Double orderCompletionRate = 0.0;
+        if (totalOrderCount != 0 && validOrderCount != 0) {
+            orderCompletionRate = (double) validOrderCount / totalOrderCount;
+            unitPrice = turnover / validOrderCount;
+        }
 
-        //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
+        return BusinessDataVO.builder()
+                .turnover(turnover)
+                .validOrderCount(validOrderCount)
+                .orderCompletionRate(orderCompletionRate)
+                .unitPrice(unitPrice)
+                .newUsers(newUsers)
+                .build();
+    }
 
-        //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
+    /**
+     * 查询订单管理数据
+     *
+     * @return
+     */
+    public OrderOverViewVO getOrderOverView() {
+        //当天下单的订单中待接单、待派送、已完成、已取消的数量 (读取计数器，不扫描订单表)
+        List<Integer> counts = orderStatusCounter.countToday(
+                Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.COMPLETED, Orders.CANCELLED);
 
         //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
+        Integer allOrders = orderStatusCounter.countTodayAll();
 
         return OrderOverViewVO.builder()
-                .waitingOrders(waitingOrders)
-                .deliveredOrders(deliveredOrders)
-                .completedOrders(completedOrders)
-                .cancelledOrders(cancelledOrders)
+                .waitingOrders(counts.get(0))
+                .deliveredOrders(counts.get(1))
+                .completedOrders(counts.get(2))
+                .cancelledOrders(counts.get(3))
                 .allOrders(allOrders)
                 .build();
     }
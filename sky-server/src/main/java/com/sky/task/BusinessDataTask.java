@@ -0,0 +1,32 @@
+package com.sky.task;
+
+import com.sky.constant.SchedulerJobConstant;
+import com.sky.service.BusinessDataDailyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class BusinessDataTask {
+
+    @Autowired
+    private BusinessDataDailyService businessDataDailyService;
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    /**
+     * 每日汇总前一天的营业数据，在自动完成派送订单(1点)之后执行
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void rollupBusinessData() {
+        schedulerLease.runIfLeader(SchedulerJobConstant.ROLLUP_BUSINESS_DATA, () -> {
+            log.info("汇总每日营业数据 {}", LocalDateTime.now());
+            businessDataDailyService.rollup();
+        });
+    }
+}
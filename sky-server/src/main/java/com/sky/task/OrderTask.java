@@ -1,42 +1,101 @@
 package com.sky.task;
 
 import com.fasterxml.jackson.databind.util.LookupCache;
+import com.sky.constant.SchedulerJobConstant;
+import com.sky.counter.OrderStatusCounter;
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class OrderTask {
 
+    /**
+     * 超时订单每批取消的数量
+     */
+    private static final int TIMEOUT_CANCEL_BATCH_SIZE = 500;
+
     @Autowired
     private OrderMapper orderMapper;
 
-    @Scheduled(cron = "0 * * * * ?")
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 兜底取消超时未支付的订单，正常情况下由 OrderTimeoutQueue 在超时后1秒内取消
+     * 每批一个事务：锁定最多 TIMEOUT_CANCEL_BATCH_SIZE 条订单的id和下单时间，按id一次批量更新，再逐条调整状态计数器
+     */
+    @Scheduled(cron = "0 0/10 * * * ?")
     public void processTimeoutOrder(){
+        schedulerLease.runIfLeader(SchedulerJobConstant.PROCESS_TIMEOUT_ORDER, this::cancelTimeoutOrder);
+    }
+
+    private void cancelTimeoutOrder() {
         log.info("定时处理超时订单， {}", LocalDateTime.now());
 
-        // select * from orders where status = ? and order_time + 15  < LD.now()
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(
-                Orders.PENDING_PAYMENT,
-                LocalDateTime.now().plusMinutes(-15));
+        LocalDateTime orderTime = LocalDateTime.now().minus(OrderTimeoutQueue.PAY_TIMEOUT);
+        LocalDateTime cancelTime = LocalDateTime.now();
 
-        if(ordersList != null && ordersList.size() > 0 ){
-            for(Orders orders : ordersList){
-                orders.setStatus(Orders.CANCELLED);
-                orders.setCancelReason("订单超时自动取消");
-                orders.setCancelTime(LocalDateTime.now());
-                orderMapper.update(orders);
-            }
+        int total = 0;
+        int count;
+        do {
+            Integer cancelled = transactionTemplate.execute(status -> cancelTimeoutOrderBatch(orderTime, cancelTime));
+            count = cancelled == null ? 0 : cancelled;
+            total += count;
+        } while (count == TIMEOUT_CANCEL_BATCH_SIZE);
+
+        meterRegistry.counter("order.timeout.cancelled").increment(total);
+        log.info("本次自动取消超时订单{}条", total);
+    }
+
+    /**
+     * 取消一批超时订单，需在事务中调用
+     * @return 取消的订单数
+     */
+    private int cancelTimeoutOrderBatch(LocalDateTime orderTime, LocalDateTime cancelTime) {
+        // select id, order_time from orders where status = 1 and order_time < 15分钟前 order by id limit ? for update
+        List<Orders> ordersList = orderMapper.lockByStatusAndOrderTimeLT(
+                Orders.PENDING_PAYMENT, orderTime, TIMEOUT_CANCEL_BATCH_SIZE);
+        if (ordersList.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        // 订单已锁定，状态不会再变，全部更新成功
+        int count = orderMapper.cancelByIdsAndStatus(
+                ids, Orders.PENDING_PAYMENT, Orders.CANCELLED, "订单超时自动取消", cancelTime);
+        for (Orders orders : ordersList) {
+            // 事务提交后才写入计数器
+            orderStatusCounter.transition(orders.getOrderTime(), Orders.PENDING_PAYMENT, Orders.CANCELLED);
         }
+        return count;
+    }
 
+    /**
+     * 每5分钟按数据库校准订单状态计数器
+     */
+    @Scheduled(cron = "0 0/5 * * * ?")
+    public void processReconcileStatusCount() {
+        schedulerLease.runIfLeader(SchedulerJobConstant.RECONCILE_ORDER_STATUS_COUNT, orderStatusCounter::reconcile);
     }
 
     /**
@@ -44,6 +103,10 @@ public class OrderTask {
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void processDelivery(){
+        schedulerLease.runIfLeader(SchedulerJobConstant.PROCESS_DELIVERY, this::completeDelivery);
+    }
+
+    private void completeDelivery() {
         log.info("自动处理还处于派送状态下的订单 {}", LocalDateTime.now());
 
         List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(
@@ -55,6 +118,7 @@ public class OrderTask {
             for(Orders orders : ordersList){
                 orders.setStatus(Orders.COMPLETED);
                 orderMapper.update(orders);
+                orderStatusCounter.transition(orders.getOrderTime(), Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED);
             }
         }
     }
@@ -0,0 +1,162 @@
+package com.sky.task;
+
+import com.sky.counter.OrderStatusCounter;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单支付超时延时队列
+ * 下单时把订单id按支付截止时间放入 Redis 有序集合 (score 为截止时间毫秒数)，支付后移除；
+ * 每秒取出已到期的订单取消，订单在超时后约1秒内被取消，不需要扫描订单表。
+ * 多个节点同时处理时，只有 ZREM 成功的节点会取消该订单。
+ * 每秒一次的轮询使用独立线程，不占用 @Scheduled 的调度线程，避免与其他定时任务互相阻塞。
+ */
+@Component
+@Slf4j
+public class OrderTimeoutQueue implements DisposableBean {
+
+    /**
+     * 订单支付超时时间
+     */
+    public static final Duration PAY_TIMEOUT = Duration.ofMinutes(15);
+
+    private static final String KEY = "order_timeout";
+
+    /**
+     * 每次取出的到期订单数
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 轮询间隔 (毫秒)
+     */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-timeout-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    /**
+     * 加入超时队列
+     * @param orderId
+     * @param orderTime 下单时间
+     */
+    public void add(Long orderId, LocalDateTime orderTime) {
+        stringRedisTemplate.opsForZSet().add(KEY, String.valueOf(orderId), toEpochMilli(orderTime.plus(PAY_TIMEOUT)));
+    }
+
+    /**
+     * 移出超时队列 (订单已支付)
+     * @param orderId
+     */
+    public void remove(Long orderId) {
+        stringRedisTemplate.opsForZSet().remove(KEY, String.valueOf(orderId));
+    }
+
+    /**
+     * 启动时把数据库中待付款的订单重新放入队列，防止队列数据丢失，然后开始轮询
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        try {
+            List<Orders> ordersList = orderMapper.getByStatus(Orders.PENDING_PAYMENT);
+            for (Orders orders : ordersList) {
+                add(orders.getId(), orders.getOrderTime());
+            }
+            log.info("超时队列恢复待付款订单{}条", ordersList.size());
+        } finally {
+            poller.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * 异常不能抛出，否则 ScheduledExecutorService 会停止后续轮询
+     */
+    private void poll() {
+        try {
+            processExpired();
+        } catch (Exception e) {
+            log.error("处理超时订单失败", e);
+        }
+    }
+
+    /**
+     * 取消已到支付截止时间的订单
+     */
+    public void processExpired() {
+        long now = System.currentTimeMillis();
+        int total = 0;
+        Set<ZSetOperations.TypedTuple<String>> entries;
+        do {
+            entries = stringRedisTemplate.opsForZSet().rangeByScoreWithScores(KEY, 0, now, 0, BATCH_SIZE);
+            if (entries == null || entries.isEmpty()) {
+                break;
+            }
+            for (ZSetOperations.TypedTuple<String> entry : entries) {
+                String orderId = entry.getValue();
+                // 先从队列中移除，移除成功的节点负责取消
+                Long removed = stringRedisTemplate.opsForZSet().remove(KEY, orderId);
+                if (removed == null || removed == 0) {
+                    continue;
+                }
+                // 只取消仍处于待付款状态的订单
+                int cancelled = orderMapper.cancelByIdAndStatus(
+                        Long.valueOf(orderId), Orders.PENDING_PAYMENT, Orders.CANCELLED, "订单超时自动取消", LocalDateTime.now());
+                if (cancelled > 0) {
+                    // score 为支付截止时间，减去超时时间即下单时间
+                    LocalDateTime orderTime = LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(entry.getScore().longValue()), ZoneId.systemDefault()).minus(PAY_TIMEOUT);
+                    orderStatusCounter.transition(orderTime, Orders.PENDING_PAYMENT, Orders.CANCELLED);
+                }
+                total += cancelled;
+            }
+        } while (entries.size() == BATCH_SIZE);
+
+        if (total > 0) {
+            meterRegistry.counter("order.timeout.cancelled").increment(total);
+            log.info("自动取消超时订单{}条", total);
+        }
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,167 @@
+package com.sky.task;
+
+import com.sky.constant.SchedulerJobConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务租约，多节点部署时每次任务只在一个节点上执行
+ * 任务触发时各节点用 SET NX PX 抢占 scheduler_lease: + 任务名，抢到的节点执行任务，
+ * 执行期间定时续期；执行结束后不主动释放，租约自然过期，避免时钟稍慢的节点在同一触发点再执行一次。
+ * 持有租约的节点宕机后租约过期，下次触发时由其他节点接管。
+ * 执行间隔短于租约时长的任务 (如购物车回写) 使用 runOnHolder，持有租约的节点每次触发都执行并延长租约。
+ * 续期使用独立线程，任务占用调度线程时也能按时续期。
+ */
+@Component
+@Slf4j
+public class SchedulerLease implements InitializingBean, DisposableBean {
+
+    private static final String KEY_PREFIX = "scheduler_lease:";
+
+    /**
+     * 租约时长，runIfLeader 的任务执行间隔需大于租约时长
+     */
+    private static final long LEASE_MILLIS = 30000;
+
+    /**
+     * 只有持有者才能续期
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    /**
+     * 租约空闲时抢占，本节点已持有时延长
+     */
+    private static final DefaultRedisScript<Long> HOLD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end " +
+                    "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    /**
+     * 当前节点标识 pid@hostname
+     */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * 任务名，启动时登记全部任务，之后出现的新任务名在执行时加入
+     */
+    private final Set<String> jobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 本节点正在执行、需要续期的任务
+     */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        jobs.addAll(Arrays.asList(SchedulerJobConstant.ALL));
+        renewer.scheduleWithFixedDelay(this::renew, LEASE_MILLIS / 3, LEASE_MILLIS / 3, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        renewer.shutdownNow();
+    }
+
+    /**
+     * 抢到租约时执行任务，否则跳过本次执行
+     * @param job 任务名
+     * @param task
+     */
+    public void runIfLeader(String job, Runnable task) {
+        jobs.add(job);
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + job, nodeId, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.info("任务{}由其他节点执行，持有者：{}", job, stringRedisTemplate.opsForValue().get(KEY_PREFIX + job));
+            return;
+        }
+
+        run(job, task);
+    }
+
+    /**
+     * 本节点持有或抢到租约时执行任务，否则跳过本次执行
+     * 持有租约的节点连续执行，任务不会在两个节点上交替执行；该节点宕机后租约过期，由其他节点接管
+     * @param job 任务名
+     * @param task
+     */
+    public void runOnHolder(String job, Runnable task) {
+        jobs.add(job);
+        Long held = stringRedisTemplate.execute(HOLD_SCRIPT,
+                Collections.singletonList(KEY_PREFIX + job), nodeId, String.valueOf(LEASE_MILLIS));
+        if (held == null || held == 0) {
+            log.debug("任务{}由其他节点执行", job);
+            return;
+        }
+        run(job, task);
+    }
+
+    private void run(String job, Runnable task) {
+        running.add(job);
+        try {
+            task.run();
+        } finally {
+            running.remove(job);
+        }
+    }
+
+    /**
+     * 为本节点正在执行的任务续期，异常不能抛出，否则后续不再续期
+     */
+    public void renew() {
+        for (String job : running) {
+            try {
+                Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                        Collections.singletonList(KEY_PREFIX + job), nodeId, String.valueOf(LEASE_MILLIS));
+                if (renewed == null || renewed == 0) {
+                    log.warn("任务{}的租约已丢失", job);
+                }
+            } catch (Exception e) {
+                log.error("任务{}的租约续期失败", job, e);
+            }
+        }
+    }
+
+    /**
+     * 查询各任务租约的持有节点
+     * @return 任务名 -> 持有节点，租约已过期时为null
+     */
+    public Map<String, String> getHolders() {
+        Map<String, String> holders = new TreeMap<>();
+        for (String job : jobs) {
+            holders.put(job, stringRedisTemplate.opsForValue().get(KEY_PREFIX + job));
+        }
+        return holders;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
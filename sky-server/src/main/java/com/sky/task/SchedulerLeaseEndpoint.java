@@ -0,0 +1,29 @@
+package com.sky.task;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 查看定时任务租约的持有节点
+ * /actuator/schedulerLeases，返回内容包含节点的 pid@hostname，只在本机监听的管理端口上暴露 (management.server)
+ */
+@Component
+@Endpoint(id = "schedulerLeases")
+public class SchedulerLeaseEndpoint {
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    @ReadOperation
+    public Map<String, Object> leases() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("node", schedulerLease.getNodeId());
+        map.put("holders", schedulerLease.getHolders());
+        return map;
+    }
+}
@@ -0,0 +1,26 @@
+package com.sky.task;
+
+import com.sky.cart.ShoppingCartStore;
+import com.sky.constant.SchedulerJobConstant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ShoppingCartTask {
+
+    @Autowired
+    private ShoppingCartStore shoppingCartStore;
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    /**
+     * 定时将 Redis 中变更过的购物车回写数据库
+     * 只在持有租约的一个节点上回写，避免两个节点先后取出同一用户、旧快照覆盖新快照
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void flushShoppingCart() {
+        schedulerLease.runOnHolder(SchedulerJobConstant.FLUSH_SHOPPING_CART, shoppingCartStore::flush);
+    }
+}
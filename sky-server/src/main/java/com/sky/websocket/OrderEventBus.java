@@ -0,0 +1,56 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 集群内的订单事件总线
+ * 事件通过 Redis 发布订阅广播到所有节点（包括自己），每个节点只推送给本节点上连接的 WebSocket 会话，
+ * 因此商户端连接在任意节点上都能收到其他节点产生的订单事件。
+ */
+@Component
+@Slf4j
+public class OrderEventBus implements MessageListener {
+
+    /**
+     * 订单事件频道，消息格式：{"topic":"order:paid","message":"..."}
+     */
+    public static final String CHANNEL = "order_event";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private WebSocketServer webSocketServer;
+
+    /**
+     * 发布订单事件，异步执行，不阻塞下单、支付等请求
+     * @param topic WebSocket 订阅主题
+     * @param message 推送给客户端的消息
+     */
+    @Async
+    public void publish(String topic, String message) {
+        JSONObject event = new JSONObject();
+        event.put("topic", topic);
+        event.put("message", message);
+        stringRedisTemplate.convertAndSend(CHANNEL, event.toJSONString());
+    }
+
+    /**
+     * 收到订单事件，推送给本节点订阅了该主题的会话
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        JSONObject event = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8));
+        webSocketServer.sendToTopic(event.getString("topic"), event.getString("message"));
+    }
+}
@@ -1,43 +1,91 @@
 package com.sky.websocket;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.constant.WebSocketTopicConstant;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import javax.websocket.OnClose;
+import javax.websocket.OnError;
 import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket服务
+ * 客户端按主题订阅消息：连接时通过 ?topics=order:paid,order:reminder 指定，
+ * 或连接后发送 {"subscribe":["order:paid"]} / {"unsubscribe":["order:paid"]}。
+ * 连接时未指定主题的客户端订阅 WebSocketTopicConstant.DEFAULT_TOPICS。
  */
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
 
-    //存放会话对象
-    private static Map<String, Session> sessionMap = new HashMap();
+    //存放会话对象，连接的建立、断开和群发可能在不同线程同时进行
+    private static Map<String, WebSocketSessionSender> sessionMap = new ConcurrentHashMap<>();
+
+    //主题 -> 订阅该主题的会话
+    private static Map<String, Set<WebSocketSessionSender>> topicMap = new ConcurrentHashMap<>();
 
     /**
      * 连接建立成功调用的方法
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        log.info("客户端：{}建立连接", sid);
+        WebSocketSessionSender sender = new WebSocketSessionSender(sid, session);
+        WebSocketSessionSender old = sessionMap.put(sid, sender);
+        if (old != null) {
+            unsubscribeAll(old);
+        }
+
+        List<String> topics = session.getRequestParameterMap().get("topics");
+        if (topics == null || topics.isEmpty()) {
+            subscribe(sender, Arrays.asList(WebSocketTopicConstant.DEFAULT_TOPICS));
+        } else {
+            for (String topic : topics) {
+                subscribe(sender, Arrays.asList(topic.split(",")));
+            }
+        }
     }
 
     /**
-     * 收到客户端消息后调用的方法
+     * 收到客户端消息后调用的方法，用于订阅或取消订阅主题
      *
      * @param message 客户端发送过来的消息
      */
     @OnMessage
     public void onMessage(String message, @PathParam("sid") String sid) {
-        System.out.println("收到来自客户端：" + sid + "的信息:" + message);
+        log.info("收到来自客户端：{}的信息:{}", sid, message);
+        WebSocketSessionSender sender = sessionMap.get(sid);
+        if (sender == null) {
+            return;
+        }
+        JSONObject jsonObject;
+        try {
+            jsonObject = JSON.parseObject(message);
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (jsonObject == null) {
+            return;
+        }
+        if (jsonObject.containsKey("subscribe")) {
+            subscribe(sender, jsonObject.getJSONArray("subscribe").toJavaList(String.class));
+        }
+        if (jsonObject.containsKey("unsubscribe")) {
+            unsubscribe(sender, jsonObject.getJSONArray("unsubscribe").toJavaList(String.class));
+        }
     }
 
     /**
@@ -46,26 +94,90 @@ public class WebSocketServer {
      * @param sid
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+        remove(session, sid);
     }
 
     /**
-     * 群发
+     * 连接出错调用的方法
+     *
+     * @param sid
+     * @param error
+     */
+    @OnError
+    public void onError(Session session, @PathParam("sid") String sid, Throwable error) {
+        log.error("连接出错:{}", sid, error);
+        remove(session, sid);
+    }
+
+    /**
+     * 群发，消息进入每个会话的发送队列后立即返回，不等待网络发送
      *
      * @param message
      */
     public void sendToAllClient(String message) {
-        Collection<Session> sessions = sessionMap.values();
-        for (Session session : sessions) {
-            try {
-                //服务器向客户端发送消息
-                session.getBasicRemote().sendText(message);
-            } catch (Exception e) {
-                e.printStackTrace();
+        for (WebSocketSessionSender sender : sessionMap.values()) {
+            sender.send(message);
+        }
+    }
+
+    /**
+     * 只发送给订阅了该主题的会话
+     *
+     * @param topic
+     * @param message
+     */
+    public void sendToTopic(String topic, String message) {
+        Set<WebSocketSessionSender> senders = topicMap.get(topic);
+        if (senders == null) {
+            return;
+        }
+        for (WebSocketSessionSender sender : senders) {
+            sender.send(message);
+        }
+    }
+
+    /**
+     * 移除会话，同一个sid重连后，旧连接的关闭不能移除新连接
+     */
+    private void remove(Session session, String sid) {
+        WebSocketSessionSender sender = sessionMap.get(sid);
+        if (sender != null && sender.getSession() == session && sessionMap.remove(sid, sender)) {
+            unsubscribeAll(sender);
+        }
+    }
+
+    private void subscribe(WebSocketSessionSender sender, Collection<String> topics) {
+        for (String topic : topics) {
+            topic = topic.trim();
+            if (topic.isEmpty()) {
+                continue;
             }
+            sender.getTopics().add(topic);
+            topicMap.compute(topic, (key, senders) -> {
+                if (senders == null) {
+                    senders = ConcurrentHashMap.newKeySet();
+                }
+                senders.add(sender);
+                return senders;
+            });
         }
     }
 
+    private void unsubscribe(WebSocketSessionSender sender, Collection<String> topics) {
+        for (String topic : topics) {
+            topic = topic.trim();
+            sender.getTopics().remove(topic);
+            topicMap.computeIfPresent(topic, (key, senders) -> {
+                senders.remove(sender);
+                return senders.isEmpty() ? null : senders;
+            });
+        }
+    }
+
+    private void unsubscribeAll(WebSocketSessionSender sender) {
+        unsubscribe(sender, new ArrayList<>(sender.getTopics()));
+    }
+
 }
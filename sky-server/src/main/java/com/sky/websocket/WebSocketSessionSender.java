@@ -0,0 +1,115 @@
+package com.sky.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个会话的异步发送器
+ * 消息先进入有界队列，同一时刻只有一条消息在异步发送中，发送完成的回调里再发下一条，
+ * 调用方线程不会阻塞在网络写上。队列满说明客户端消费太慢，直接关闭该会话。
+ */
+@Slf4j
+public class WebSocketSessionSender {
+
+    /**
+     * 每个会话最多排队的消息数
+     */
+    private static final int QUEUE_CAPACITY = 100;
+
+    private final String sid;
+
+    private final Session session;
+
+    private final Queue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * 该会话订阅的主题
+     */
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否有消息正在发送
+     */
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    public WebSocketSessionSender(String sid, Session session) {
+        this.sid = sid;
+        this.session = session;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public Set<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * 消息入队并尝试发送，不阻塞
+     * @param message
+     * @return 会话已关闭或队列已满时返回false
+     */
+    public boolean send(String message) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        if (!queue.offer(message)) {
+            log.warn("客户端：{} 消息积压超过{}条，关闭连接", sid, QUEUE_CAPACITY);
+            close();
+            return false;
+        }
+        sendNext();
+        return true;
+    }
+
+    /**
+     * 没有正在发送的消息时，取出队首消息异步发送
+     */
+    private void sendNext() {
+        while (!queue.isEmpty() && sending.compareAndSet(false, true)) {
+            String message = queue.poll();
+            if (message == null) {
+                // 被其他线程取走了，释放发送状态后重新检查
+                sending.set(false);
+                continue;
+            }
+            try {
+                session.getAsyncRemote().sendText(message, this::onSendResult);
+            } catch (RuntimeException e) {
+                log.error("客户端：{} 发送消息失败", sid, e);
+                sending.set(false);
+                close();
+            }
+            return;
+        }
+    }
+
+    private void onSendResult(SendResult result) {
+        sending.set(false);
+        if (!result.isOK()) {
+            log.error("客户端：{} 发送消息失败", sid, result.getException());
+            close();
+            return;
+        }
+        sendNext();
+    }
+
+    private void close() {
+        queue.clear();
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "slow consumer"));
+        } catch (IOException e) {
+            log.error("客户端：{} 关闭连接失败", sid, e);
+        }
+    }
+}
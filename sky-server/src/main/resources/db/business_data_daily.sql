@@ -0,0 +1,13 @@
+-- 每日营业数据汇总表，由 BusinessDataTask 每日增量维护
+create table if not exists business_data_daily
+(
+    id                bigint auto_increment comment '主键' primary key,
+    date              date                     not null comment '统计日期',
+    turnover          decimal(12, 2) default 0 not null comment '营业额',
+    valid_order_count int            default 0 not null comment '有效订单数',
+    total_order_count int            default 0 not null comment '订单总数',
+    new_users         int            default 0 not null comment '新增用户数',
+    unit_price        decimal(10, 2) default 0 not null comment '平均客单价',
+    update_time       datetime                 null comment '汇总时间',
+    constraint idx_date unique (date)
+) comment '每日营业数据汇总';
@@ -0,0 +1,3 @@
+-- 支付、支付回调按订单号和用户id查询订单
+-- 历史订单号为毫秒时间戳，不同用户可能重复，不能建唯一索引；新订单号由雪花算法生成，不会重复
+create index idx_orders_number_user_id on orders (number, user_id);
@@ -0,0 +1,25 @@
+-- 购物车商品唯一键：同一用户的同一菜品/套餐/口味只有一行，加购通过 insert ... on duplicate key update 原子累加
+-- dish_id、setmeal_id 总有一个为 null，唯一索引不会比较 null，因此用生成列 cart_key 拼接商品标识
+
+-- 1. 合并已存在的重复行，数量累加到 id 最小的一行
+update shopping_cart sc
+    join (select min(id) as keep_id, sum(number) as total
+          from shopping_cart
+          group by user_id, dish_id, setmeal_id, dish_flavor
+          having count(*) > 1) d on sc.id = d.keep_id
+set sc.number = d.total;
+
+delete sc
+from shopping_cart sc
+         join shopping_cart keep
+              on sc.user_id = keep.user_id
+                  and sc.dish_id <=> keep.dish_id
+                  and sc.setmeal_id <=> keep.setmeal_id
+                  and sc.dish_flavor <=> keep.dish_flavor
+                  and sc.id > keep.id;
+
+-- 2. 添加商品标识生成列和唯一索引
+alter table shopping_cart
+    add column cart_key varchar(100)
+        as (concat_ws(':', ifnull(dish_id, ''), ifnull(setmeal_id, ''), ifnull(dish_flavor, ''))) stored comment '商品标识',
+    add unique index idx_user_cart_key (user_id, cart_key);
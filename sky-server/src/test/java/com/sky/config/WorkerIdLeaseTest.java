@@ -0,0 +1,81 @@
+package com.sky.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/**
+ * 节点号租约：被其他节点占用时标记失效，重新抢占后恢复
+ */
+@ExtendWith(MockitoExtension.class)
+class WorkerIdLeaseTest {
+
+    private static final String KEY = "order_number_worker_id:5";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private WorkerIdLease workerIdLease;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment("order_number_worker_id")).thenReturn(5L);
+        workerIdLease = new WorkerIdLease(stringRedisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workerIdLease.destroy();
+    }
+
+    @Test
+    void leaseLostToAnotherNodeUntilReacquired() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true, false, true);
+        assertEquals(5L, workerIdLease.acquire());
+        assertTrue(workerIdLease.isHeld());
+
+        // 续期脚本发现键已归其他节点，重新抢占也失败
+        lenient().when(stringRedisTemplate.execute(any(), anyList(), any(), any())).thenReturn(0L);
+        workerIdLease.renew();
+        assertFalse(workerIdLease.isHeld());
+
+        // 其他节点释放后，下一次续期重新抢占到同一个节点号
+        workerIdLease.renew();
+        assertTrue(workerIdLease.isHeld());
+    }
+
+    @Test
+    void renewExtendsLease() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+        workerIdLease.acquire();
+
+        lenient().when(stringRedisTemplate.execute(any(), anyList(), any(), any())).thenReturn(1L);
+        workerIdLease.renew();
+
+        assertTrue(workerIdLease.isHeld());
+    }
+}
@@ -0,0 +1,112 @@
+package com.sky.interceptor;
+
+import com.sky.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 已校验令牌缓存：命中、过期和篡改的处理，并对比每次完整校验的耗时
+ */
+class JwtTokenCacheTest {
+
+    private static final String SECRET_KEY = "itcast";
+
+    private static final String CLAIM = "empId";
+
+    private static final int ITERATIONS = 100_000;
+
+    private final JwtTokenCache jwtTokenCache = new JwtTokenCache();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtTokenCache, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void secondRequestHitsCache() {
+        String token = token(1L, 60_000);
+
+        assertEquals(1L, jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM));
+        assertEquals(1L, jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM));
+
+        assertEquals(1, count("admin", "miss"));
+        assertEquals(1, count("admin", "hit"));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = token(1L, 60_000);
+        jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM);
+
+        // 换成另一个令牌的签名，摘要不同，不会命中缓存，完整校验失败
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + token(2L, 60_000).split("\\.")[2];
+        assertThrows(RuntimeException.class, () -> jwtTokenCache.verify("admin", SECRET_KEY, tampered, CLAIM));
+    }
+
+    @Test
+    void sameTokenIsVerifiedSeparatelyPerType() {
+        String token = token(1L, 60_000);
+        jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM);
+
+        // 用户端使用另一个秘钥，管理端令牌不能借用管理端的缓存在用户端通过
+        assertThrows(RuntimeException.class, () -> jwtTokenCache.verify("user", "other-secret", token, CLAIM));
+    }
+
+    @Test
+    void expiredTokenIsVerifiedAgain() throws Exception {
+        // 过期时间精确到秒
+        String token = token(1L, 1500);
+        jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM);
+
+        Thread.sleep(2500);
+
+        assertThrows(RuntimeException.class, () -> jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM));
+        assertEquals(2, count("admin", "miss"));
+    }
+
+    @Test
+    void cachedVersusFullVerification() {
+        String token = token(1L, 600_000);
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM);
+            JwtUtil.parseJWT(SECRET_KEY, token);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Long.valueOf(JwtUtil.parseJWT(SECRET_KEY, token).get(CLAIM).toString());
+        }
+        long full = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            jwtTokenCache.verify("admin", SECRET_KEY, token, CLAIM);
+        }
+        long cached = System.nanoTime() - begin;
+
+        System.out.printf("校验%d次：完整校验 %.2fus/次，缓存命中 %.2fus/次%n", ITERATIONS,
+                full / 1000.0 / ITERATIONS, cached / 1000.0 / ITERATIONS);
+    }
+
+    private String token(Long id, long ttlMillis) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM, id);
+        return JwtUtil.createJWT(SECRET_KEY, ttlMillis, claims);
+    }
+
+    private double count(String type, String result) {
+        return meterRegistry.counter("jwt.token.cache.requests", "type", type, "result", result).count();
+    }
+}
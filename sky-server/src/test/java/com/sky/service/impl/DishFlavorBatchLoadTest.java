@@ -0,0 +1,117 @@
+package com.sky.service.impl;
+
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 菜品口味批量查询：一个分类的菜品及口味固定两次查询
+ */
+@ExtendWith(MockitoExtension.class)
+class DishFlavorBatchLoadTest {
+
+    @Mock
+    private DishMapper dishMapper;
+
+    @Mock
+    private DishFlavorMapper dishFlavorMapper;
+
+    @InjectMocks
+    private DishServiceImpl dishService;
+
+    @Test
+    void listWithFlavorLoadsFlavorsOfAllDishesInOneQuery() {
+        when(dishMapper.list(any())).thenReturn(dishes(40));
+        when(dishFlavorMapper.getByDishIds(anyList())).thenAnswer(invocation -> flavors(invocation.getArgument(0)));
+
+        List<DishVO> dishVOList = dishService.listWithFlavor(new Dish());
+
+        verify(dishFlavorMapper, times(1)).getByDishIds(anyList());
+        verify(dishFlavorMapper, never()).getByDishId(anyLong());
+        assertEquals(40, dishVOList.size());
+        for (DishVO dishVO : dishVOList) {
+            assertEquals(2, dishVO.getFlavors().size());
+            assertEquals(dishVO.getId(), dishVO.getFlavors().get(0).getDishId());
+        }
+    }
+
+    @Test
+    void dishWithoutFlavorGetsEmptyList() {
+        when(dishMapper.list(any())).thenReturn(dishes(3));
+        when(dishFlavorMapper.getByDishIds(anyList())).thenReturn(new ArrayList<>());
+
+        List<DishVO> dishVOList = dishService.listWithFlavor(new Dish());
+
+        assertTrue(dishVOList.get(0).getFlavors().isEmpty());
+    }
+
+    @Test
+    void emptyCategorySkipsFlavorQuery() {
+        when(dishMapper.list(any())).thenReturn(new ArrayList<>());
+
+        assertTrue(dishService.listWithFlavor(new Dish()).isEmpty());
+        verify(dishFlavorMapper, never()).getByDishIds(anyList());
+    }
+
+    @Test
+    void mapperCallsDoNotGrowWithDishCount() {
+        when(dishFlavorMapper.getByDishIds(anyList())).thenAnswer(invocation -> flavors(invocation.getArgument(0)));
+
+        for (int size : new int[]{10, 40, 100}) {
+            when(dishMapper.list(any())).thenReturn(dishes(size));
+            clearInvocations(dishMapper, dishFlavorMapper);
+
+            dishService.listWithFlavor(new Dish());
+
+            // 实际发生的 mapper 调用：查询菜品1次，查询口味1次
+            assertEquals(1, mockingDetails(dishMapper).getInvocations().size(), "dishes=" + size);
+            assertEquals(1, mockingDetails(dishFlavorMapper).getInvocations().size(), "dishes=" + size);
+        }
+    }
+
+    private List<Dish> dishes(int size) {
+        List<Dish> list = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Dish dish = new Dish();
+            dish.setId(id);
+            dish.setName("dish-" + id);
+            list.add(dish);
+        }
+        return list;
+    }
+
+    private List<DishFlavor> flavors(List<Long> dishIds) {
+        List<DishFlavor> list = new ArrayList<>();
+        for (Long dishId : dishIds) {
+            for (String name : new String[]{"辣度", "忌口"}) {
+                DishFlavor flavor = new DishFlavor();
+                flavor.setDishId(dishId);
+                flavor.setName(name);
+                list.add(flavor);
+            }
+        }
+        return list;
+    }
+}
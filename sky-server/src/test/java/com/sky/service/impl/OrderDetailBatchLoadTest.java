@@ -0,0 +1,125 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.result.PageResult;
+import com.sky.vo.OrderVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单明细批量查询：查询次数不随分页大小增长
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderDetailBatchLoadTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderDetailMapper orderDetailMapper;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @AfterEach
+    void clearPage() {
+        PageHelper.clearPage();
+    }
+
+    @Test
+    void conditionSearchLoadsDetailsOfWholePageInOneQuery() {
+        Page<Orders> page = page(50);
+        when(orderMapper.pageQuery(any())).thenReturn(page);
+        when(orderDetailMapper.getByOrderIds(anyList())).thenAnswer(invocation -> details(invocation.getArgument(0)));
+
+        PageResult result = orderService.conditionSearch(query(50));
+
+        verify(orderDetailMapper, times(1)).getByOrderIds(anyList());
+        verify(orderDetailMapper, never()).getByOrderId(anyLong());
+        List<OrderVO> records = (List<OrderVO>) result.getRecords();
+        assertEquals(50, records.size());
+        assertEquals("dish-1*1; dish-1*2; ", records.get(0).getOrderDishes());
+    }
+
+    @Test
+    void pageQuery4UserAttachesDetailsToEachOrder() {
+        when(orderMapper.pageQuery(any())).thenReturn(page(20));
+        when(orderDetailMapper.getByOrderIds(anyList())).thenAnswer(invocation -> details(invocation.getArgument(0)));
+
+        PageResult result = orderService.pageQuery4User(query(20));
+
+        verify(orderDetailMapper, times(1)).getByOrderIds(anyList());
+        List<OrderVO> records = (List<OrderVO>) result.getRecords();
+        for (OrderVO orderVO : records) {
+            assertEquals(2, orderVO.getOrderDetailList().size());
+            assertEquals(orderVO.getId(), orderVO.getOrderDetailList().get(0).getOrderId());
+        }
+    }
+
+    @Test
+    void mapperCallsDoNotGrowWithPageSize() {
+        when(orderDetailMapper.getByOrderIds(anyList())).thenAnswer(invocation -> details(invocation.getArgument(0)));
+
+        for (int pageSize : new int[]{10, 50, 100, 200}) {
+            when(orderMapper.pageQuery(any())).thenReturn(page(pageSize));
+            clearInvocations(orderMapper, orderDetailMapper);
+
+            orderService.conditionSearch(query(pageSize));
+            PageHelper.clearPage();
+
+            // 实际发生的 mapper 调用：分页查询订单1次，查询明细1次
+            assertEquals(1, mockingDetails(orderMapper).getInvocations().size(), "pageSize=" + pageSize);
+            assertEquals(1, mockingDetails(orderDetailMapper).getInvocations().size(), "pageSize=" + pageSize);
+        }
+    }
+
+    private OrdersPageQueryDTO query(int pageSize) {
+        OrdersPageQueryDTO dto = new OrdersPageQueryDTO();
+        dto.setPage(1);
+        dto.setPageSize(pageSize);
+        return dto;
+    }
+
+    private Page<Orders> page(int size) {
+        Page<Orders> page = new Page<>(1, size);
+        for (long id = 1; id <= size; id++) {
+            page.add(Orders.builder().id(id).number(String.valueOf(id)).build());
+        }
+        page.setTotal(size);
+        return page;
+    }
+
+    private List<OrderDetail> details(List<Long> orderIds) {
+        List<OrderDetail> list = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            for (int i = 1; i <= 2; i++) {
+                list.add(OrderDetail.builder().orderId(orderId).name("dish-" + orderId).number(i).build());
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,207 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.constant.WebSocketTopicConstant;
+import com.sky.context.BaseContext;
+import com.sky.counter.OrderStatusCounter;
+import com.sky.dto.OrdersPaymentDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.task.OrderTimeoutQueue;
+import com.sky.websocket.OrderEventBus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 支付的并发隔离：多个用户同时支付，每个请求只更新自己的订单、只推送自己的订单消息
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderPaymentConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private static final int USERS_PER_THREAD = 50;
+
+    private static final int USERS = THREADS * USERS_PER_THREAD;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderTimeoutQueue orderTimeoutQueue;
+
+    @Mock
+    private OrderStatusCounter orderStatusCounter;
+
+    @Mock
+    private OrderEventBus orderEventBus;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @Test
+    void concurrentPaySuccessUpdatesOnlyTheirOwnOrder() throws Exception {
+        Map<Long, AtomicInteger> updated = stubOrders();
+
+        runConcurrently(userId -> orderService.paySuccess("N" + userId));
+
+        assertUpdatedOnce(updated);
+    }
+
+    @Test
+    void concurrentPaymentsUpdateAndPublishOnlyTheirOwnOrder() throws Exception {
+        Map<Long, AtomicInteger> updated = stubOrders();
+        Queue<String> published = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> published.add(invocation.getArgument(1)))
+                .when(orderEventBus).publish(eq(WebSocketTopicConstant.ORDER_PAID), anyString());
+
+        runConcurrently(userId -> {
+            OrdersPaymentDTO ordersPaymentDTO = new OrdersPaymentDTO();
+            ordersPaymentDTO.setOrderNumber("N" + userId);
+            ordersPaymentDTO.setPayMethod(1);
+            orderService.payment(ordersPaymentDTO);
+        });
+
+        assertUpdatedOnce(updated);
+        // 每个用户恰好推送一条消息，消息中的订单id和订单号都是自己的订单
+        assertEquals(USERS, published.size());
+        Set<Long> notified = new HashSet<>();
+        for (String message : published) {
+            JSONObject json = JSON.parseObject(message);
+            String number = json.getString("content").substring("订单号：".length());
+            long userId = Long.parseLong(number.substring(1));
+            assertEquals(userId * 10, json.getLongValue("orderId"), message);
+            assertTrue(notified.add(userId), "重复推送：" + message);
+        }
+    }
+
+    @Test
+    void paySuccessDoesNotOverwriteCancelledOrder() {
+        BaseContext.setCurrentId(1L);
+        try {
+            when(orderMapper.getByNumberAndUserId("N1", 1L)).thenReturn(order(10L, "N1"));
+            // 超时任务已把订单取消，条件更新不命中
+            when(orderMapper.updateStatusByIdAndStatus(eq(10L), eq(Orders.PENDING_PAYMENT),
+                    eq(Orders.TO_BE_CONFIRMED), eq(Orders.PAID), any(LocalDateTime.class))).thenReturn(0);
+
+            orderService.paySuccess("N1");
+
+            verify(orderMapper, never()).update(any());
+            verify(orderTimeoutQueue, never()).remove(anyLong());
+            verify(orderStatusCounter, never()).transition(any(), any(), any());
+        } finally {
+            BaseContext.removeCurrentId();
+        }
+    }
+
+    /**
+     * 订单id = 用户id * 10，订单号 = "N" + 用户id；按订单id记录条件更新的次数
+     */
+    private Map<Long, AtomicInteger> stubOrders() {
+        when(orderMapper.getByNumberAndUserId(anyString(), anyLong())).thenAnswer(invocation -> {
+            String number = invocation.getArgument(0);
+            Long userId = invocation.getArgument(1);
+            if (!number.equals("N" + userId)) {
+                return null;
+            }
+            // 模拟数据库往返，放大请求交错
+            Thread.sleep(1);
+            return order(userId * 10, number);
+        });
+        Map<Long, AtomicInteger> updated = new ConcurrentHashMap<>();
+        when(orderMapper.updateStatusByIdAndStatus(anyLong(), eq(Orders.PENDING_PAYMENT),
+                eq(Orders.TO_BE_CONFIRMED), eq(Orders.PAID), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            updated.computeIfAbsent(invocation.getArgument(0), id -> new AtomicInteger()).incrementAndGet();
+            return 1;
+        });
+        return updated;
+    }
+
+    /**
+     * 每个线程依次以不同用户的身份支付
+     */
+    private void runConcurrently(Payment payment) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < USERS_PER_THREAD; i++) {
+                        long userId = thread * USERS_PER_THREAD + i + 1;
+                        BaseContext.setCurrentId(userId);
+                        try {
+                            payment.pay(userId);
+                        } finally {
+                            BaseContext.removeCurrentId();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 每个用户的订单恰好更新一次，没有更新到其他用户的订单
+     */
+    private void assertUpdatedOnce(Map<Long, AtomicInteger> updated) {
+        assertEquals(USERS, updated.size());
+        for (long userId = 1; userId <= USERS; userId++) {
+            AtomicInteger count = updated.get(userId * 10);
+            assertEquals(1, count == null ? 0 : count.get(), "订单" + userId * 10);
+        }
+    }
+
+    private Orders order(Long id, String number) {
+        return Orders.builder()
+                .id(id)
+                .number(number)
+                .status(Orders.PENDING_PAYMENT)
+                .orderTime(LocalDateTime.now())
+                .build();
+    }
+
+    private interface Payment {
+        void pay(long userId) throws Exception;
+    }
+}
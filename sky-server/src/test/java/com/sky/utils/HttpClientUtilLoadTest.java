@@ -0,0 +1,162 @@
+package com.sky.utils;
+
+import com.sky.properties.HttpClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 共享连接池的负载测试：本地桩服务每个请求模拟5ms处理时间，
+ * 对比共享连接池与每次请求新建 HttpClient 的耗时和 TCP 连接数
+ */
+class HttpClientUtilLoadTest {
+
+    private static final int THREADS = 32;
+
+    private static final int REQUESTS_PER_THREAD = 50;
+
+    private static final int MAX_PER_ROUTE = 16;
+
+    static {
+        // 桩服务关闭 Nagle，否则长连接上响应头和响应体分两次写出时会等待客户端的延迟确认 (约40ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+
+    private String url;
+
+    /**
+     * 桩服务看到的客户端地址，每个不同的端口对应一个 TCP 连接
+     */
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stub", exchange -> {
+            connections.add(exchange.getRemoteAddress());
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(THREADS));
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/stub";
+
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setMaxPerRoute(MAX_PER_ROUTE);
+        HttpClientUtil.init(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        HttpClientUtil.close();
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    void pooledClientReusesConnections() throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        long elapsed = run(() -> {
+            if ("ok".equals(HttpClientUtil.doGet(url, null))) {
+                ok.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * REQUESTS_PER_THREAD, ok.get());
+        // 连接数受每路由上限约束，远少于请求数
+        assertTrue(connections.size() <= MAX_PER_ROUTE, "连接数：" + connections.size());
+        PoolStats stats = HttpClientUtil.getPoolStats();
+        assertEquals(0, stats.getLeased());
+        assertEquals(0, stats.getPending());
+        System.out.printf("共享连接池：%d个请求，耗时%dms，TCP连接%d个%n",
+                ok.get(), TimeUnit.NANOSECONDS.toMillis(elapsed), connections.size());
+    }
+
+    @Test
+    void clientPerRequestForComparison() throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        long elapsed = run(() -> {
+            // 改造前的做法：每次请求新建并关闭 HttpClient
+            try (CloseableHttpClient client = HttpClients.createDefault();
+                 CloseableHttpResponse response = client.execute(new HttpGet(url))) {
+                if ("ok".equals(EntityUtils.toString(response.getEntity(), "UTF-8"))) {
+                    ok.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * REQUESTS_PER_THREAD, ok.get());
+        System.out.printf("每次新建HttpClient：%d个请求，耗时%dms，TCP连接%d个%n",
+                ok.get(), TimeUnit.NANOSECONDS.toMillis(elapsed), connections.size());
+    }
+
+    @Test
+    void poolStatsAfterCloseDoNotRecreatePool() {
+        HttpClientUtil.close();
+
+        PoolStats stats = HttpClientUtil.getPoolStats();
+
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getLeased());
+        // 统计不会重新创建连接池，关闭后仍为全0
+        assertEquals(0, HttpClientUtil.getPoolStats().getMax());
+    }
+
+    private long run(Callable<Void> request) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        request.call();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
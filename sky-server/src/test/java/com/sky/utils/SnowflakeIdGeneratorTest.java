@@ -0,0 +1,156 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花算法ID生成器的并发唯一性与吞吐量、时钟回拨与节点号租约失效的处理
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 100_000;
+
+    /**
+     * 多线程共用一个生成器：ID全部不重复，每个线程拿到的ID严格递增
+     */
+    @Test
+    void concurrentIdsAreUniqueAndIncreasing() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long last = -1;
+                    boolean increasing = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+                        increasing &= id > last;
+                        last = id;
+                        ids.add(id);
+                    }
+                    return increasing;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(60, TimeUnit.SECONDS));
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+            System.out.printf("%d个线程共生成%d个ID，耗时%dms，%.0f个/秒%n", THREADS, ids.size(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), ids.size() * 1e9 / elapsed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 不同节点号的生成器同时生成，ID不会重复
+     */
+    @Test
+    void differentWorkersDoNotCollide() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID - t);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 序列号用完时等到下一毫秒，ID中的时间戳不会超过生成时的当前时间
+     */
+    @Test
+    void idsNeverUseFutureTimestamps() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        for (int i = 0; i < IDS_PER_THREAD; i++) {
+            long id = generator.nextId();
+            long now = System.currentTimeMillis();
+            assertTrue(SnowflakeIdGenerator.timestampOf(id) <= now, "ID时间戳超前：" + id);
+        }
+    }
+
+    /**
+     * 时钟小幅回拨时等待追上，ID仍递增；回拨过多时拒绝生成
+     */
+    @Test
+    void clockMovedBackwards() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1) {
+            @Override
+            protected long currentTimeMillis() {
+                // 每次读取时钟前进1ms，等待时钟追上时不会卡住
+                return clock.getAndIncrement();
+            }
+        };
+        long first = generator.nextId();
+
+        clock.addAndGet(-3);
+        long second = generator.nextId();
+        assertTrue(second > first);
+        assertTrue(SnowflakeIdGenerator.timestampOf(second) >= SnowflakeIdGenerator.timestampOf(first));
+
+        clock.addAndGet(-1000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    /**
+     * 节点号租约失效期间拒绝生成，重新抢占后恢复
+     */
+    @Test
+    void refusesWhileWorkerIdIsNotHeld() {
+        AtomicBoolean held = new AtomicBoolean(true);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, held::get);
+        long first = generator.nextId();
+
+        held.set(false);
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        held.set(true);
+        assertTrue(generator.nextId() > first);
+    }
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+}
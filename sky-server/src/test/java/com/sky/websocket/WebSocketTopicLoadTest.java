@@ -0,0 +1,176 @@
+package com.sky.websocket;
+
+import com.sky.constant.WebSocketTopicConstant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 按主题推送的负载测试：模拟数千个会话，订单事件只送达订阅了该主题的会话
+ */
+class WebSocketTopicLoadTest {
+
+    /**
+     * 订阅了订单主题的商户端会话数
+     */
+    private static final int MERCHANT_SESSIONS = 50;
+
+    /**
+     * 只订阅其他主题的会话数
+     */
+    private static final int OTHER_SESSIONS = 5000;
+
+    private static final int EVENTS = 1000;
+
+    private final WebSocketServer webSocketServer = new WebSocketServer();
+
+    private final Map<String, Session> sessions = new HashMap<>();
+
+    /**
+     * sid -> 收到的消息数
+     */
+    private final Map<String, AtomicInteger> received = new HashMap<>();
+
+    @AfterEach
+    void closeSessions() {
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            webSocketServer.onClose(entry.getValue(), entry.getKey());
+        }
+    }
+
+    @Test
+    void orderEventsReachOnlySubscribedSessions() {
+        List<String> merchants = open("merchant-", MERCHANT_SESSIONS, null);
+        List<String> others = open("other-", OTHER_SESSIONS, "shop:status");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            webSocketServer.sendToTopic(WebSocketTopicConstant.ORDER_PAID, "{\"type\":1,\"orderId\":" + i + "}");
+        }
+        long topicMicros = (System.nanoTime() - start) / 1000;
+
+        for (String sid : merchants) {
+            assertEquals(EVENTS, received.get(sid).get());
+        }
+        for (String sid : others) {
+            assertEquals(0, received.get(sid).get());
+        }
+        long topicSends = totalReceived();
+        assertEquals((long) EVENTS * MERCHANT_SESSIONS, topicSends);
+
+        start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            webSocketServer.sendToAllClient("{\"type\":1,\"orderId\":" + i + "}");
+        }
+        long broadcastMicros = (System.nanoTime() - start) / 1000;
+        long broadcastSends = totalReceived() - topicSends;
+        assertEquals((long) EVENTS * (MERCHANT_SESSIONS + OTHER_SESSIONS), broadcastSends);
+
+        // 发送次数为各会话实际收到的消息数之和
+        System.out.printf("sessions=%d events=%d topicSends=%d topicMs=%d broadcastSends=%d broadcastMs=%d%n",
+                MERCHANT_SESSIONS + OTHER_SESSIONS, EVENTS,
+                topicSends, topicMicros / 1000, broadcastSends, broadcastMicros / 1000);
+    }
+
+    @Test
+    void subscribeAndUnsubscribeByMessage() {
+        open("terminal-", 1, "shop:status");
+        String sid = "terminal-0";
+
+        webSocketServer.onMessage("{\"subscribe\":[\"" + WebSocketTopicConstant.ORDER_REMINDER + "\"]}", sid);
+        webSocketServer.sendToTopic(WebSocketTopicConstant.ORDER_REMINDER, "reminder");
+        assertEquals(1, received.get(sid).get());
+
+        webSocketServer.onMessage("{\"unsubscribe\":[\"" + WebSocketTopicConstant.ORDER_REMINDER + "\"]}", sid);
+        webSocketServer.sendToTopic(WebSocketTopicConstant.ORDER_REMINDER, "reminder");
+        assertEquals(1, received.get(sid).get());
+    }
+
+    @Test
+    void reconnectReplacesOldSession() {
+        open("pad-", 1, null);
+        Session old = sessions.get("pad-0");
+
+        // 同一个sid重连，旧连接随后关闭不影响新连接
+        open("pad-", 1, null);
+        webSocketServer.onClose(old, "pad-0");
+        webSocketServer.sendToTopic(WebSocketTopicConstant.ORDER_PAID, "paid");
+
+        assertEquals(1, received.get("pad-0").get());
+    }
+
+    /**
+     * 建立count个会话
+     * @param topics 连接参数中的主题，为null时使用默认主题
+     * @return sid列表
+     */
+    private List<String> open(String prefix, int count, String topics) {
+        List<String> sids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String sid = prefix + i;
+            AtomicInteger counter = new AtomicInteger();
+            received.put(sid, counter);
+            Session session = mockSession(topics, counter);
+            sessions.put(sid, session);
+            webSocketServer.onOpen(session, sid);
+            sids.add(sid);
+        }
+        return sids;
+    }
+
+    private long totalReceived() {
+        long total = 0;
+        for (AtomicInteger counter : received.values()) {
+            total += counter.get();
+        }
+        return total;
+    }
+
+    /**
+     * 用动态代理实现的会话，异步发送立即完成并计数
+     * 数千个会话、数百万次发送，不使用 Mockito 记录每次调用
+     */
+    private Session mockSession(String topics, AtomicInteger counter) {
+        RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.Async.class}, (proxy, method, args) -> {
+                    if ("sendText".equals(method.getName()) && args.length == 2) {
+                        counter.incrementAndGet();
+                        ((SendHandler) args[1]).onResult(new SendResult());
+                    }
+                    return null;
+                });
+        Map<String, List<String>> parameterMap = topics == null
+                ? Collections.emptyMap()
+                : Collections.singletonMap("topics", Collections.singletonList(topics));
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return true;
+                        case "getAsyncRemote":
+                            return remote;
+                        case "getRequestParameterMap":
+                            return parameterMap;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return null;
+                    }
+                });
+    }
+}